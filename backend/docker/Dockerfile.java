@@ -27,5 +27,8 @@ FROM eclipse-temurin:21-jdk
 
 WORKDIR /app
 COPY --from=builder /app/framework/target/*.jar app.jar
-EXPOSE 8080
+# Corpus do índice BM25 (mesmos documentos do rag-server)
+COPY rag-server/data/ documents/
+ENV RAG_RETRIEVAL_DOCUMENTS_DIR=/app/documents
+EXPOSE 8080 8081
 ENTRYPOINT ["java", "-jar", "app.jar"]
@@ -0,0 +1,4 @@
+#!/bin/bash
+# Permite conexoes de replicacao vindas da rede do compose (usado pelo postgres-replica)
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
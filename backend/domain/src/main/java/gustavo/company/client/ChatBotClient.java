@@ -1,7 +1,13 @@
 package gustavo.company.client;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface ChatBotClient {
     Map<String, String> askAgentAI(final String message);
+
+    CompletableFuture<Map<String, String>> askAgentAIAsync(final String message);
+
+    CompletableFuture<Void> streamAgentAI(final String message, final Consumer<String> onChunk);
 }
@@ -0,0 +1,8 @@
+package gustavo.company.client;
+
+import java.util.List;
+import java.util.Map;
+
+public interface DocumentRetriever {
+    List<Map<String, Object>> search(final String query, final int limit);
+}
@@ -0,0 +1,18 @@
+package gustavo.company.entity;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Data of a user about to be registered, with the rules every registration
+ * path enforces.
+ */
+public record UserRegistration(
+        @NotBlank(message = "Name cannot be empty.") String name,
+
+        @NotBlank(message = "Email cannot be empty.") @Email String email,
+
+        @NotBlank(message = "Password cannot be empty.") @Size(min = 8, message = "Password cannot be less than 8 characters.") @Size(max = 50, message = "Password cannot exceed 50 characters.") String password) {
+
+}
@@ -0,0 +1,11 @@
+package gustavo.company.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record UserSummary(
+        UUID id,
+        String name,
+        String email,
+        LocalDateTime createdAt) {
+}
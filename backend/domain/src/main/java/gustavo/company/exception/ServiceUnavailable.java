@@ -0,0 +1,33 @@
+package gustavo.company.exception;
+
+public class ServiceUnavailable extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailable() {
+        this.retryAfterSeconds = 1;
+    }
+
+    public ServiceUnavailable(String message) {
+        super(message);
+        this.retryAfterSeconds = 1;
+    }
+
+    public ServiceUnavailable(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public ServiceUnavailable(String message, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = 1;
+    }
+
+    public ServiceUnavailable(Throwable cause) {
+        super(cause);
+        this.retryAfterSeconds = 1;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,33 @@
+package gustavo.company.exception;
+
+public class TooManyRequests extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequests() {
+        this.retryAfterSeconds = 1;
+    }
+
+    public TooManyRequests(String message) {
+        super(message);
+        this.retryAfterSeconds = 1;
+    }
+
+    public TooManyRequests(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public TooManyRequests(String message, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = 1;
+    }
+
+    public TooManyRequests(Throwable cause) {
+        super(cause);
+        this.retryAfterSeconds = 1;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
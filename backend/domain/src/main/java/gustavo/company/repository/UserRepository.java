@@ -1,9 +1,13 @@
 package gustavo.company.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import gustavo.company.entity.UserDomain;
+import gustavo.company.entity.UserSummary;
 
 public interface UserRepository {
     UserDomain save(UserDomain user);
@@ -13,4 +17,14 @@ public interface UserRepository {
     Optional<UserDomain> findByName(String username);
 
     Optional<UserDomain> findById(UUID userId);
+
+    boolean mightExistByEmail(String email);
+
+    boolean definitelyAbsentByEmail(String email);
+
+    List<UserDomain> saveAllSkippingConflicts(List<UserDomain> users);
+
+    List<UserSummary> findPageAfter(LocalDateTime createdAt, UUID id, int limit);
+
+    void forEachSummary(Consumer<UserSummary> consumer);
 }
@@ -8,5 +8,5 @@ public interface AuthService {
 
     String register(String email, String code, String avatarUrl);
 
-    Map<String, Object> isAuth(UUID userId);
+    Map<String, Object> isAuth(UUID userId, String username);
 }
\ No newline at end of file
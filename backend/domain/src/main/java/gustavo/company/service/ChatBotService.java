@@ -0,0 +1,9 @@
+package gustavo.company.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public interface ChatBotService {
+    CompletableFuture<List<Map<String, Object>>> askBatch(List<String> messages);
+}
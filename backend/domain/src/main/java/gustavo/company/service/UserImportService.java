@@ -0,0 +1,8 @@
+package gustavo.company.service;
+
+import java.io.InputStream;
+import java.util.Map;
+
+public interface UserImportService {
+    Map<String, Object> importUsers(InputStream input, String format);
+}
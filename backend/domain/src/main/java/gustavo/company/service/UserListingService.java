@@ -0,0 +1,12 @@
+package gustavo.company.service;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+import gustavo.company.entity.UserSummary;
+
+public interface UserListingService {
+    Map<String, Object> listUsers(String cursor, int limit);
+
+    void exportUsers(Consumer<UserSummary> consumer);
+}
@@ -0,0 +1,14 @@
+package gustavo.company.utils;
+
+import java.util.List;
+
+import gustavo.company.exception.ServiceUnavailable;
+
+public interface PasswordHasher {
+
+    String encode(String rawPassword) throws ServiceUnavailable;
+
+    boolean matches(String rawPassword, String encodedPassword) throws ServiceUnavailable;
+
+    List<String> encodeAll(List<String> rawPasswords) throws ServiceUnavailable;
+}
@@ -0,0 +1,34 @@
+package gustavo.company.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Reduces text to a canonical form so that trivially different spellings
+ * ("Qual o CPF?" and "  qual o cpf? ") compare equal: answers are cached,
+ * in-flight calls coalesced and batch questions deduplicated by it, and
+ * documents are indexed with it.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Case-folds the text, strips accents and collapses whitespace.
+     *
+     * @param text text as typed by the user or read from a document
+     * @return normalized text
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String withoutAccents = DIACRITICS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
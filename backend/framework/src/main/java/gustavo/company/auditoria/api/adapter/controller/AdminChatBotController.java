@@ -0,0 +1,63 @@
+package gustavo.company.auditoria.api.adapter.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import gustavo.company.auditoria.api.driver.client.chatBot.AnswerCache;
+import gustavo.company.auditoria.api.driver.client.chatBot.RagLoadBalancer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Administrative endpoints for the chat bot integration.
+ * Restricted to users with the ADMIN role.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/chat-bot")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminChatBotController {
+
+    private final AnswerCache answerCache;
+    private final RagLoadBalancer ragLoadBalancer;
+
+    /**
+     * Endpoint to inspect the answer cache.
+     *
+     * @return HTTP response with the cache size and hit, miss and eviction counters.
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(answerCache.stats());
+    }
+
+    /**
+     * Endpoint to purge the answer cache, e.g. after the document corpus changes.
+     *
+     * @return HTTP response with success message.
+     */
+    @DeleteMapping("/cache")
+    public ResponseEntity<String> purgeCache() {
+        log.info("Purging answer cache");
+        answerCache.purge();
+        return ResponseEntity.status(HttpStatus.OK).body("Answer cache purged successfully");
+    }
+
+    /**
+     * Endpoint to inspect the RAG server replicas.
+     *
+     * @return HTTP response with the health, calls in progress and latency of
+     *         every replica.
+     */
+    @GetMapping("/endpoints")
+    public ResponseEntity<List<Map<String, Object>>> endpointStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(ragLoadBalancer.stats());
+    }
+}
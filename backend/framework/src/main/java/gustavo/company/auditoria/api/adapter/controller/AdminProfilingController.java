@@ -0,0 +1,59 @@
+package gustavo.company.auditoria.api.adapter.controller;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import gustavo.company.auditoria.api.config.jfr.FlightRecordingManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Administrative endpoints to profile the running application with Java
+ * Flight Recorder. Restricted to users with the ADMIN role.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/profiling")
+@RequiredArgsConstructor
+public class AdminProfilingController {
+
+    private final FlightRecordingManager flightRecordingManager;
+
+    /**
+     * Endpoint to start a recording, including the application's own events.
+     *
+     * @param settings JDK settings: "default" (low overhead) or "profile".
+     * @return HTTP response with the state of the recording and its file.
+     */
+    @PostMapping("/recording")
+    public ResponseEntity<Map<String, Object>> startRecording(
+            @RequestParam(defaultValue = "default") String settings) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(flightRecordingManager.start(settings));
+    }
+
+    /**
+     * Endpoint to inspect the current recording.
+     *
+     * @return HTTP response with the state of the recording and its file.
+     */
+    @GetMapping("/recording")
+    public ResponseEntity<Map<String, Object>> recordingStatus() {
+        return ResponseEntity.status(HttpStatus.OK).body(flightRecordingManager.status());
+    }
+
+    /**
+     * Endpoint to stop the current recording and write it to disk.
+     *
+     * @return HTTP response with the file the recording was written to.
+     */
+    @DeleteMapping("/recording")
+    public ResponseEntity<Map<String, Object>> stopRecording() {
+        return ResponseEntity.status(HttpStatus.OK).body(flightRecordingManager.stop());
+    }
+}
@@ -0,0 +1,133 @@
+package gustavo.company.auditoria.api.adapter.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import gustavo.company.entity.UserSummary;
+import gustavo.company.service.UserImportService;
+import gustavo.company.service.UserListingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Administrative endpoints for user management.
+ * Restricted to users with the ADMIN role.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/users")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminUserController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    private final UserImportService userImportService;
+    private final UserListingService userListingService;
+
+    /**
+     * Endpoint to list users page by page, oldest first.
+     *
+     * @param cursor Cursor returned as {@code nextCursor} by the previous page;
+     *               omitted for the first page.
+     * @param limit  Page size, between 1 and 500.
+     * @return HTTP response with the users (without password hashes) and the
+     *         cursor of the next page, null on the last page.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listUsers(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        Map<String, Object> page = userListingService.listUsers(cursor, Math.clamp(limit, 1, 500));
+        return ResponseEntity.status(HttpStatus.OK).body(page);
+    }
+
+    /**
+     * Endpoint to export every user as CSV. Rows are read through a database
+     * cursor and written straight to the response, so memory use is the same
+     * for any number of users.
+     *
+     * @param response HTTP response the CSV is written to.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping(value = "/export", produces = TEXT_CSV)
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        log.info("Starting user export");
+        response.setContentType(TEXT_CSV);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.csv\"");
+
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 64 * 1024)) {
+            writer.write("id,name,email,created_at\n");
+            userListingService.exportUsers(user -> writeCsvRow(writer, user));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Endpoint to register many users at once, e.g. when onboarding a client
+     * organisation. The body is streamed, either as CSV with a
+     * {@code name,email,password} header or as NDJSON with one user per line.
+     *
+     * @param request HTTP request whose body holds the users.
+     * @return HTTP response with the number of imported users and the lines that
+     *         were rejected, with the reason.
+     * @throws IOException if the request body cannot be opened.
+     */
+    @PostMapping(value = "/import", consumes = { TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<Map<String, Object>> importUsers(HttpServletRequest request) throws IOException {
+        final String format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.APPLICATION_NDJSON) ? "ndjson" : "csv";
+        log.info("Starting user import from {}", format);
+
+        Map<String, Object> report = userImportService.importUsers(request.getInputStream(), format);
+
+        return ResponseEntity.status(HttpStatus.OK).body(report);
+    }
+
+    private static void writeCsvRow(Writer writer, UserSummary user) {
+        try {
+            writer.write(user.id().toString());
+            writer.write(',');
+            writer.write(csvField(user.name()));
+            writer.write(',');
+            writer.write(csvField(user.email()));
+            writer.write(',');
+            writer.write(String.valueOf(user.createdAt()));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Quotes a field and neutralises leading characters that spreadsheets would
+     * evaluate as a formula, including the tab and carriage return some of them
+     * skip before looking for one.
+     */
+    private static String csvField(String value) {
+        if (value == null) return "";
+        String escaped = value.replace("\"", "\"\"");
+        if (!escaped.isEmpty() && "=+-@\t\r".indexOf(escaped.charAt(0)) >= 0) {
+            escaped = "'" + escaped;
+        }
+        return '"' + escaped + '"';
+    }
+}
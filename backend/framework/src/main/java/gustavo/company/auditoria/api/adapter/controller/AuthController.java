@@ -1,10 +1,10 @@
 package gustavo.company.auditoria.api.adapter.controller;
 
 import java.util.Map;
-import java.util.UUID;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -13,10 +13,10 @@ import org.springframework.web.bind.annotation.RestController;
 
 import gustavo.company.auditoria.api.adapter.dto.request.auth.LoginRequestDTO;
 import gustavo.company.auditoria.api.adapter.dto.request.auth.RegisterRequestDTO;
+import gustavo.company.auditoria.api.config.security.AuthenticatedUser;
+import gustavo.company.exception.Unauthorized;
 import gustavo.company.service.AuthService;
-import gustavo.company.utils.JWTUtils;
 import jakarta.servlet.http.Cookie;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -33,7 +33,6 @@ import lombok.extern.slf4j.Slf4j;
 public class AuthController {
 
     private final AuthService authService;
-    private final JWTUtils jwtUtils;
 
     /**
      * Endpoint to log in a user.
@@ -60,21 +59,24 @@ public class AuthController {
 
     /**
      * Endpoint to check if the user is authenticated.
-     * Extracts the JWT token from the cookie, validates it, and checks if the user
-     * exists.
+     * The token cookie was already verified and the user loaded by the security
+     * filter, so this only reads the resolved principal.
      *
-     * @param httpRequest HTTP request containing cookies.
+     * @param user Authenticated user, or null if the request carries no valid
+     *             token.
      * @return HTTP response indicating whether the user is authenticated.
      */
     @GetMapping("/isAuth")
-    public ResponseEntity<Map<String, Object>> isAuth(HttpServletRequest httpRequest) {
+    public ResponseEntity<Map<String, Object>> isAuth(@AuthenticationPrincipal AuthenticatedUser user) {
 
-        UUID userId = jwtUtils.getUserIdFromCookie(httpRequest);
-        log.info("Checking authentication for user ID: {}", userId);
+        if (user == null) {
+            log.warn("Authentication check without a valid token");
+            throw new Unauthorized("User not authenticated");
+        }
 
-        Map<String, Object> response = authService.isAuth(userId); // throws exception if not found or invalid
+        Map<String, Object> response = authService.isAuth(user.id(), user.name());
 
-        log.info("User is authenticated. ID: {}", userId);
+        log.debug("User is authenticated. ID: {}", user.id());
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -1,36 +1,239 @@
 package gustavo.company.auditoria.api.adapter.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import gustavo.company.auditoria.api.adapter.dto.request.chatBot.BatchQuestionRequestDTO;
 import gustavo.company.auditoria.api.adapter.dto.request.chatBot.QuestionRequestDTO;
+import gustavo.company.auditoria.api.config.deadline.Deadline;
 import gustavo.company.client.ChatBotClient;
+import gustavo.company.client.DocumentRetriever;
+import gustavo.company.exception.RequestTimeout;
+import gustavo.company.service.ChatBotService;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
 @RequestMapping("/api/v1/chat-bot")
-@RequiredArgsConstructor
 @Slf4j
 public class ChatBotController {
 
     private final ChatBotClient chatBotClient;
-   
+    private final ChatBotService chatBotService;
+    private final DocumentRetriever documentRetriever;
+    private final TaskScheduler taskScheduler;
+    private final ExecutorService chatBotExecutor;
+    private final Duration heartbeatInterval;
 
+    public ChatBotController(ChatBotClient chatBotClient, ChatBotService chatBotService,
+            DocumentRetriever documentRetriever, TaskScheduler taskScheduler,
+            @Qualifier("chatBotExecutor") ExecutorService chatBotExecutor,
+            @Value("${chat.stream.heartbeat-interval-ms:5000}") long heartbeatIntervalMs) {
+        this.chatBotClient = chatBotClient;
+        this.chatBotService = chatBotService;
+        this.documentRetriever = documentRetriever;
+        this.taskScheduler = taskScheduler;
+        this.chatBotExecutor = chatBotExecutor;
+        this.heartbeatInterval = Duration.ofMillis(Math.max(1, heartbeatIntervalMs));
+    }
+
+    /**
+     * Endpoint to ask a question to the RAG agent.
+     * The answer is produced asynchronously, so the request thread is released
+     * while the agent is generating it. If the request's deadline passes first,
+     * the question is cancelled. A client that disconnects meanwhile is not
+     * noticed, so its question runs until answered or until the deadline.
+     *
+     * @param request Question sent by the user.
+     * @return deferred HTTP response with the agent's answer.
+     */
     @PostMapping("/ask/agent")
-    public ResponseEntity<Map<String, String>> ask(@RequestBody @Valid QuestionRequestDTO request) {
+    public DeferredResult<ResponseEntity<Map<String, String>>> ask(@RequestBody @Valid QuestionRequestDTO request) {
+
+        CompletableFuture<Map<String, String>> answer = chatBotClient.askAgentAIAsync(request.message());
+
+        return cancelOnAbandon(answer.thenApply(result -> ResponseEntity.status(HttpStatus.OK).body(result)), answer);
+    }
+
+    /**
+     * Endpoint to ask several questions at once, e.g. the checklist of a document
+     * submission. Questions are answered in parallel and duplicates are asked only
+     * once. Each distinct question is charged against the same rate limit as the
+     * single-question endpoint, by {@code BatchRateLimitAdvice}. Questions still
+     * pending when the request's deadline passes are cancelled; as for single
+     * questions, a client disconnect is not noticed.
+     *
+     * @param request Questions sent by the user.
+     * @return deferred HTTP response with one result per question, in order, each
+     *         with its own status.
+     */
+    @PostMapping("/ask/agent/batch")
+    public DeferredResult<ResponseEntity<List<Map<String, Object>>>> askBatch(
+            @RequestBody @Valid BatchQuestionRequestDTO request) {
+
+        List<String> messages = request.questions().stream().map(QuestionRequestDTO::message).toList();
+
+        CompletableFuture<List<Map<String, Object>>> results = chatBotService.askBatch(messages);
+
+        return cancelOnAbandon(results.thenApply(body -> ResponseEntity.status(HttpStatus.OK).body(body)), results);
+    }
+
+    /**
+     * Endpoint to search the document corpus without involving the LLM.
+     * Passages are ranked with BM25 by the in-process index.
+     *
+     * @param request Query sent by the user.
+     * @param limit   Maximum number of passages, between 1 and 50.
+     * @return HTTP response with the best matching passages and their scores.
+     */
+    @PostMapping("/retrieve")
+    public ResponseEntity<List<Map<String, Object>>> retrieve(@RequestBody @Valid QuestionRequestDTO request,
+            @RequestParam(defaultValue = "5") int limit) {
+
+        List<Map<String, Object>> passages = documentRetriever.search(request.message(), Math.clamp(limit, 1, 50));
+
+        return ResponseEntity.status(HttpStatus.OK).body(passages);
+    }
 
-        Map<String, String> answer = chatBotClient.askAgentAI(request.message());
+    /**
+     * Endpoint to ask a question to the RAG agent, streaming the answer as
+     * Server-Sent Events. Every chunk is sent as a {@code token} event as soon as
+     * the agent produces it, followed by a final {@code done} event, or an
+     * {@code error} event if generation fails. While no chunk has been sent for
+     * {@code chat.stream.heartbeat-interval-ms}, an empty SSE comment is sent
+     * instead, so a client that went away is noticed even while the agent is
+     * still retrieving. Generation stops when the stream times out, or when
+     * sending a chunk or a heartbeat fails because the client went away.
+     *
+     * @param request Question sent by the user.
+     * @return emitter bound to the {@code text/event-stream} response.
+     */
+    @PostMapping(value = "/ask/agent/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter askStream(@RequestBody @Valid QuestionRequestDTO request) {
+        SseEmitter emitter = new SseEmitter(remainingMillis());
+        AtomicLong lastSentNanos = new AtomicLong(System.nanoTime());
+
+        CompletableFuture<Void> generation = chatBotClient.streamAgentAI(request.message(), chunk -> {
+            send(emitter, "token", Map.of("token", chunk));
+            lastSentNanos.set(System.nanoTime());
+        });
+        emitter.onTimeout(() -> generation.cancel(true));
+        emitter.onError(error -> generation.cancel(true));
+
+        // the write may block on a slow client, so it is not done on the scheduler thread
+        ScheduledFuture<?> heartbeat = taskScheduler.scheduleAtFixedRate(() -> {
+            if (System.nanoTime() - lastSentNanos.get() >= heartbeatInterval.toNanos()) {
+                chatBotExecutor.execute(() -> sendHeartbeat(emitter, generation));
+            }
+        }, heartbeatInterval);
+
+        generation.whenComplete((ignored, error) -> {
+            heartbeat.cancel(false);
+            if (generation.isCancelled()) {
+                log.debug("Streaming answer cancelled");
+            } else if (error != null) {
+                log.warn("Streaming answer failed", error);
+                trySend(emitter, "error", Map.of("message", "Error while generating answer"));
+            } else {
+                trySend(emitter, "done", Map.of());
+            }
+            emitter.complete();
+        });
+
+        return emitter;
+    }
+
+    /**
+     * Binds a future to a deferred response. When the request's deadline
+     * passes, or the container reports an async error, the underlying work is
+     * cancelled. The container does not probe the connection of a suspended
+     * request, so a client disconnect alone does not cancel anything.
+     *
+     * @param response future of the response body
+     * @param work     future whose cancellation stops the work
+     */
+    private static <T> DeferredResult<T> cancelOnAbandon(CompletableFuture<T> response, CompletableFuture<?> work) {
+        DeferredResult<T> deferred = new DeferredResult<>(remainingMillis());
+        deferred.onTimeout(() -> {
+            work.cancel(true);
+            deferred.setErrorResult(new RequestTimeout("Request deadline exceeded"));
+        });
+        deferred.onError(error -> work.cancel(true));
+        response.whenComplete((result, error) -> {
+            if (error != null) {
+                deferred.setErrorResult(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error);
+            } else {
+                deferred.setResult(result);
+            }
+        });
+        return deferred;
+    }
+
+    /**
+     * @return time the current request has left, or null for the default async
+     *         request timeout
+     */
+    private static Long remainingMillis() {
+        Deadline deadline = Deadline.current();
+        return deadline != null ? Math.max(1, deadline.remainingMillis()) : null;
+    }
+
+    /**
+     * Sends one event; the emitter flushes the response after every send.
+     * A failure here usually means the client went away, so it is rethrown to
+     * stop reading from the RAG server.
+     */
+    private void send(SseEmitter emitter, String name, Map<String, String> data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sends an empty comment, which clients ignore. If it cannot be written the
+     * client is gone, so generation is cancelled.
+     */
+    private void sendHeartbeat(SseEmitter emitter, CompletableFuture<Void> generation) {
+        try {
+            emitter.send(SseEmitter.event().comment(""));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Could not send heartbeat, client disconnected");
+            generation.cancel(true);
+        }
+    }
 
-        return ResponseEntity.status(HttpStatus.OK).body(answer);
+    private void trySend(SseEmitter emitter, String name, Map<String, String> data) {
+        try {
+            send(emitter, name, data);
+        } catch (UncheckedIOException | IllegalStateException e) {
+            log.debug("Could not send '{}' event, client already disconnected", name);
+        }
     }
 
-    
 }
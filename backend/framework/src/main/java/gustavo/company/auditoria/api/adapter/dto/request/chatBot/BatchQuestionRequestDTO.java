@@ -0,0 +1,12 @@
+package gustavo.company.auditoria.api.adapter.dto.request.chatBot;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+public record BatchQuestionRequestDTO(
+        @NotEmpty(message = "questions cannot be empty.") @Size(max = 20, message = "questions cannot exceed 20 items.") List<@Valid QuestionRequestDTO> questions) {
+
+}
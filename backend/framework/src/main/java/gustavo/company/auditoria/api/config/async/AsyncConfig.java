@@ -0,0 +1,54 @@
+package gustavo.company.auditoria.api.config.async;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Executors used to run blocking outbound calls and CPU-heavy work off the
+ * servlet container's request threads. Also enables {@code @Scheduled}
+ * background jobs.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Executor for calls to the RAG server. Each call runs on its own virtual
+     * thread, so a slow LLM answer only parks a cheap virtual thread instead of
+     * holding a Tomcat worker.
+     *
+     * @return virtual-thread-per-task executor
+     */
+    @Bean(name = "chatBotExecutor", destroyMethod = "shutdown")
+    public ExecutorService chatBotExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-bot-", 0).factory());
+    }
+
+    /**
+     * Executor for password hashing. BCrypt is CPU-bound, so the pool is sized to
+     * a share of the available processors and its queue is bounded; submissions
+     * beyond that are rejected rather than queued.
+     *
+     * @param cpuShare      fraction of the processors given to hashing
+     * @param queueCapacity hashes allowed to wait for a free thread
+     * @return fixed-size pool with a bounded queue and abort policy
+     */
+    @Bean(name = "passwordHashExecutor", destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordHashExecutor(
+            @Value("${password.hashing.cpu-share:0.5}") double cpuShare,
+            @Value("${password.hashing.queue-capacity:64}") int queueCapacity) {
+        final int threads = Math.max(1, (int) Math.round(Runtime.getRuntime().availableProcessors() * cpuShare));
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hash-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
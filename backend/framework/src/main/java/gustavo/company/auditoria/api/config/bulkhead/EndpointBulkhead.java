@@ -0,0 +1,73 @@
+package gustavo.company.auditoria.api.config.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import gustavo.company.auditoria.api.config.deadline.Deadline;
+import gustavo.company.exception.RequestTimeout;
+import gustavo.company.exception.ServiceUnavailable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Caps the number of requests of one endpoint group served at once.
+ */
+class EndpointBulkhead {
+
+    private final String group;
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final Counter rejectedCounter;
+
+    EndpointBulkhead(String group, int maxConcurrent, Duration maxWait, MeterRegistry meterRegistry) {
+        this.group = group;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.rejectedCounter = meterRegistry.counter("http.bulkhead.rejected", "group", group);
+        Gauge.builder("http.bulkhead.available", permits, Semaphore::availablePermits)
+                .tag("group", group)
+                .register(meterRegistry);
+        Gauge.builder("http.bulkhead.max", () -> maxConcurrent).tag("group", group).register(meterRegistry);
+    }
+
+    String group() {
+        return group;
+    }
+
+    /**
+     * Waits up to the group's {@code max-wait}, and never past the request's
+     * deadline, for a free slot.
+     *
+     * @throws RequestTimeout     if the deadline has already passed
+     * @throws ServiceUnavailable if no slot frees up in time
+     */
+    void acquire() {
+        final Deadline deadline = Deadline.current();
+        long waitNanos = maxWaitNanos;
+        if (deadline != null) {
+            deadline.check("admission");
+            waitNanos = Math.min(waitNanos, deadline.remainingNanos());
+        }
+
+        boolean acquired;
+        try {
+            acquired = waitNanos <= 0
+                    ? permits.tryAcquire()
+                    : permits.tryAcquire(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailable("Too many requests in progress, try again shortly", 1);
+        }
+    }
+
+    void release() {
+        permits.release();
+    }
+}
@@ -0,0 +1,9 @@
+package gustavo.company.auditoria.api.config.bulkhead;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(EndpointBulkheadProperties.class)
+public class EndpointBulkheadConfig {
+}
@@ -0,0 +1,139 @@
+package gustavo.company.auditoria.api.config.bulkhead;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import gustavo.company.exception.RequestTimeout;
+import gustavo.company.exception.ServiceUnavailable;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admits each request into the bulkhead of its endpoint group, so one group
+ * (e.g. slow chat calls) cannot take all the capacity of the server from the
+ * others (e.g. login). It runs right after {@link
+ * gustavo.company.auditoria.api.config.deadline.DeadlineFilter}, whose deadline
+ * bounds the wait, and before the security filter chain, so a rejected
+ * request is not authenticated first. Asynchronous requests keep their slot
+ * until the response is complete, not just until the controller returns;
+ * their async dispatches are not filtered again.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@Slf4j
+public class EndpointBulkheadFilter extends OncePerRequestFilter {
+
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final List<Map.Entry<PathPattern, EndpointBulkhead>> patterns;
+
+    public EndpointBulkheadFilter(EndpointBulkheadProperties properties, MeterRegistry meterRegistry,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        this.patterns = properties.groups().entrySet().stream()
+                .flatMap(group -> {
+                    EndpointBulkhead bulkhead = new EndpointBulkhead(group.getKey(),
+                            group.getValue().maxConcurrent(), group.getValue().maxWait(), meterRegistry);
+                    log.info("Bulkhead '{}' initialized with {} concurrent requests", group.getKey(),
+                            group.getValue().maxConcurrent());
+                    return group.getValue().paths().stream()
+                            .map(path -> Map.entry(PathPatternParser.defaultInstance.parse(path), bulkhead));
+                })
+                .toList();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws IOException, ServletException {
+
+        final EndpointBulkhead bulkhead = bulkheadOf(request);
+        if (bulkhead == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            bulkhead.acquire();
+        } catch (RequestTimeout | ServiceUnavailable e) {
+            handlerExceptionResolver.resolveException(request, response, null, e);
+            return;
+        }
+
+        final Permit permit = new Permit(bulkhead);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    private EndpointBulkhead bulkheadOf(HttpServletRequest request) {
+        final PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (Map.Entry<PathPattern, EndpointBulkhead> pattern : patterns) {
+            if (pattern.getKey().matches(path)) {
+                return pattern.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Slot held by one request, released once whichever way the request ends.
+     */
+    private static final class Permit implements AsyncListener {
+
+        private final EndpointBulkhead bulkhead;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(EndpointBulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
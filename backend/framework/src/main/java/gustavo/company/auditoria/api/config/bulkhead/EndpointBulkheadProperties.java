@@ -0,0 +1,35 @@
+package gustavo.company.auditoria.api.config.bulkhead;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Concurrency limits by endpoint group.
+ *
+ * @param groups limits by group name, each applied to a set of paths
+ */
+@ConfigurationProperties(prefix = "bulkhead")
+public record EndpointBulkheadProperties(Map<String, Group> groups) {
+
+    public EndpointBulkheadProperties {
+        groups = groups == null ? Map.of() : groups;
+    }
+
+    /**
+     * @param paths         path patterns of the group
+     * @param maxConcurrent requests of the group served at once
+     * @param maxWait       how long a request waits for a free slot before being
+     *                      rejected
+     */
+    public record Group(List<String> paths, int maxConcurrent, Duration maxWait) {
+
+        public Group {
+            paths = paths == null ? List.of() : paths;
+            maxConcurrent = maxConcurrent <= 0 ? 100 : maxConcurrent;
+            maxWait = maxWait == null ? Duration.ZERO : maxWait;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package gustavo.company.auditoria.api.config.datasource;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Keeps reads of recently written users on the primary database.
+ * <p>
+ * A replica may lag behind the primary, so a user who has just registered
+ * could be missing from it on the next request. User IDs and emails written by
+ * this instance are remembered for {@code read-your-writes-seconds}, and reads
+ * of those keys are pinned to the primary. Without a replica configured, the
+ * pin has no effect.
+ * <p>
+ * The memory of recent writes is per instance. Behind a load balancer
+ * without session affinity, the request after a registration may reach
+ * another instance and read the replica before it caught up, e.g. failing
+ * authentication with a token that was just issued. Deployments running
+ * several instances with a lagging replica should route each client to one
+ * instance, or keep {@code spring.datasource.replica.url} unset.
+ */
+@Component
+public class ReadYourWritesGuard {
+
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final Cache<Object, Boolean> recentWrites;
+
+    public ReadYourWritesGuard(
+            @Value("${spring.datasource.replica.read-your-writes-seconds:10}") long windowSeconds) {
+        this.recentWrites = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofSeconds(windowSeconds))
+                .build();
+    }
+
+    /**
+     * Records that a user was written to the primary.
+     *
+     * @param keys identifiers the user may be read by, such as ID and email
+     */
+    public void recordWrite(Object... keys) {
+        for (Object key : keys) {
+            if (key != null) {
+                recentWrites.put(normalize(key), Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Runs a read, on the primary if the key was written recently.
+     *
+     * @param key   identifier being read
+     * @param query read to run
+     * @return the query result
+     */
+    public <T> T read(Object key, Supplier<T> query) {
+        if (key == null || recentWrites.getIfPresent(normalize(key)) == null) {
+            return query.get();
+        }
+
+        final Boolean previous = PRIMARY_PINNED.get();
+        PRIMARY_PINNED.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_PINNED.remove();
+            } else {
+                PRIMARY_PINNED.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return whether connections opened by the current thread must come from
+     *         the primary
+     */
+    static boolean isPrimaryPinned() {
+        return Boolean.TRUE.equals(PRIMARY_PINNED.get());
+    }
+
+    private static Object normalize(Object key) {
+        return key instanceof String email ? email.trim().toLowerCase(Locale.ROOT) : key;
+    }
+}
@@ -0,0 +1,77 @@
+package gustavo.company.auditoria.api.config.datasource;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Routes read-only transactions to a read replica when
+ * {@code spring.datasource.replica.url} is set; otherwise the single data
+ * source auto-configured from {@code spring.datasource.*} is used.
+ * <p>
+ * Connections are obtained lazily, on the first statement of a transaction,
+ * so the transaction's read-only flag is known when the pool is chosen:
+ * read-write transactions use the primary and read-only ones the replica,
+ * falling back to the primary as described in
+ * {@link ReplicaFallbackDataSource}.
+ */
+@Configuration
+@ConditionalOnExpression("!'${spring.datasource.replica.url:}'.isBlank()")
+@Slf4j
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${spring.datasource.replica.url}") String url,
+            @Value("${spring.datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${spring.datasource.replica.password:${spring.datasource.password}}") String password) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    /**
+     * Data source used by JPA and JDBC.
+     *
+     * @param primary      pool of connections to the primary
+     * @param replica      pool of connections to the replica
+     * @param retrySeconds time the primary is used after the replica fails
+     * @return lazy proxy choosing the pool per transaction
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primary,
+            @Qualifier("replicaDataSource") HikariDataSource replica,
+            @Value("${spring.datasource.replica.retry-seconds:30}") long retrySeconds,
+            MeterRegistry meterRegistry) {
+        final LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaFallbackDataSource(replica, primary, retrySeconds, meterRegistry));
+        log.info("Read-only transactions routed to replica {}", replica.getJdbcUrl());
+        return dataSource;
+    }
+}
@@ -0,0 +1,87 @@
+package gustavo.company.auditoria.api.config.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Source of read-only connections: the replica, unless the read is pinned to
+ * the primary by {@link ReadYourWritesGuard} or the replica recently failed to
+ * hand out a connection, in which case the primary is used until
+ * {@code retry-seconds} have passed.
+ */
+@Slf4j
+final class ReplicaFallbackDataSource extends AbstractDataSource {
+
+    private final DataSource replica;
+    private final DataSource primary;
+    private final long retryNanos;
+    private final Counter fallbackCounter;
+
+    private volatile boolean replicaDown;
+    private volatile long retryAtNanos;
+
+    ReplicaFallbackDataSource(DataSource replica, DataSource primary, long retrySeconds,
+            MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.primary = primary;
+        this.retryNanos = Duration.ofSeconds(retrySeconds).toNanos();
+        this.fallbackCounter = meterRegistry.counter("datasource.replica.fallbacks");
+        Gauge.builder("datasource.replica.available", this, dataSource -> dataSource.replicaDown ? 0 : 1)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(Connector connector) throws SQLException {
+        if (ReadYourWritesGuard.isPrimaryPinned()) {
+            return connector.connect(primary);
+        }
+        if (replicaDown && System.nanoTime() - retryAtNanos < 0) {
+            fallbackCounter.increment();
+            return connector.connect(primary);
+        }
+
+        try {
+            final Connection connection = connector.connect(replica);
+            if (replicaDown) {
+                replicaDown = false;
+                log.info("Read replica available again");
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            // Hikari reports a failed lazy pool start as a RuntimeException
+            retryAtNanos = System.nanoTime() + retryNanos;
+            if (!replicaDown) {
+                replicaDown = true;
+                log.warn("Read replica unavailable, reading from the primary for the next {} s",
+                        Duration.ofNanos(retryNanos).toSeconds(), e);
+            }
+            fallbackCounter.increment();
+            return connector.connect(primary);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Connector {
+
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+}
@@ -0,0 +1,106 @@
+package gustavo.company.auditoria.api.config.deadline;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import gustavo.company.exception.RequestTimeout;
+
+/**
+ * Point in time by which a request must be answered. The deadline of the
+ * request served by the current thread is bound by {@link DeadlineFilter};
+ * work handed to other threads captures {@link #current()} first.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * @param budget time left from now
+     * @return deadline expiring after the budget
+     */
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * @return deadline of the request served by the current thread, or null
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs work on the current thread under a deadline captured on another,
+     * e.g. by the request that handed the work over.
+     *
+     * @param deadline deadline to bind while the work runs, or null for none
+     * @param work     the work
+     * @return result of the work
+     */
+    public static <T> T within(Deadline deadline, Supplier<T> work) {
+        final Deadline previous = CURRENT.get();
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    static void bind(Deadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    public long remainingNanos() {
+        return expiresAtNanos - System.nanoTime();
+    }
+
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Refuses to start work once the deadline has passed.
+     *
+     * @param work what was about to start, for the error message
+     * @throws RequestTimeout if the deadline has passed
+     */
+    public void check(String work) {
+        if (isExpired()) {
+            throw new RequestTimeout("Request deadline exceeded before " + work);
+        }
+    }
+
+    /**
+     * Caps a timeout to the time left.
+     *
+     * @param timeoutMillis timeout that would apply without a deadline
+     * @return the smaller of the timeout and the time left, at least 1 ms
+     */
+    public long capMillis(long timeoutMillis) {
+        return Math.max(1, Math.min(timeoutMillis, remainingMillis()));
+    }
+}
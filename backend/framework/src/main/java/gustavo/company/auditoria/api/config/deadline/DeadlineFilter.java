@@ -0,0 +1,98 @@
+package gustavo.company.auditoria.api.config.deadline;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import gustavo.company.exception.RequestTimeout;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Gives every request a deadline, before authentication or any other work.
+ * The budget is the default of the request's endpoint group, capped by
+ * {@code deadline.max-budget}; when several groups match, the most specific
+ * path pattern wins (e.g. the user import over the rest of the user admin). The caller's header can only shorten it, so a
+ * client cannot hold server resources longer than the endpoint allows. A
+ * request whose budget is already spent is answered with 504 without being
+ * processed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private final DeadlineProperties properties;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final List<Map.Entry<PathPattern, Duration>> patterns;
+
+    public DeadlineFilter(DeadlineProperties properties,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        this.properties = properties;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        this.patterns = properties.endpoints().values().stream()
+                .filter(endpoint -> endpoint.budget() != null)
+                .flatMap(endpoint -> endpoint.paths().stream()
+                        .map(path -> Map.entry(PathPatternParser.defaultInstance.parse(path), endpoint.budget())))
+                .sorted(Map.Entry.comparingByKey(PathPattern.SPECIFICITY_COMPARATOR))
+                .toList();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws IOException, ServletException {
+
+        final Duration budget = budgetOf(request);
+        if (budget.isZero() || budget.isNegative()) {
+            handlerExceptionResolver.resolveException(request, response, null,
+                    new RequestTimeout("Request deadline exceeded on arrival"));
+            return;
+        }
+
+        Deadline.bind(Deadline.after(budget));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Deadline.unbind();
+        }
+    }
+
+    private Duration budgetOf(HttpServletRequest request) {
+        final Duration endpointBudget = min(endpointBudgetOf(request), properties.maxBudget());
+        final String header = request.getHeader(properties.header());
+        if (header != null) {
+            try {
+                return min(Duration.ofMillis(Long.parseLong(header.trim())), endpointBudget);
+            } catch (NumberFormatException e) {
+                // a malformed header counts as absent
+            }
+        }
+        return endpointBudget;
+    }
+
+    private Duration endpointBudgetOf(HttpServletRequest request) {
+        final PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (Map.Entry<PathPattern, Duration> pattern : patterns) {
+            if (pattern.getKey().matches(path)) {
+                return pattern.getValue();
+            }
+        }
+        return properties.defaultBudget();
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
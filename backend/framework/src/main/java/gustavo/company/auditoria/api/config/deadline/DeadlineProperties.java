@@ -0,0 +1,44 @@
+package gustavo.company.auditoria.api.config.deadline;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Time budgets of incoming requests.
+ *
+ * @param header        request header carrying the caller's remaining budget,
+ *                      in milliseconds; it can only shorten the budget
+ * @param defaultBudget budget of requests outside of any endpoint group
+ * @param maxBudget     upper bound on any budget
+ * @param endpoints     default budgets by endpoint group, each applied to a set
+ *                      of paths
+ */
+@ConfigurationProperties(prefix = "deadline")
+public record DeadlineProperties(
+        String header,
+        Duration defaultBudget,
+        Duration maxBudget,
+        Map<String, Endpoint> endpoints) {
+
+    public DeadlineProperties {
+        header = header == null || header.isBlank() ? "X-Request-Budget-Ms" : header;
+        defaultBudget = defaultBudget == null ? Duration.ofSeconds(10) : defaultBudget;
+        maxBudget = maxBudget == null ? Duration.ofMinutes(30) : maxBudget;
+        endpoints = endpoints == null ? Map.of() : endpoints;
+    }
+
+    /**
+     * @param paths  path patterns of the group
+     * @param budget budget of the group's requests, unless the header asks
+     *               for less
+     */
+    public record Endpoint(List<String> paths, Duration budget) {
+
+        public Endpoint {
+            paths = paths == null ? List.of() : paths;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package gustavo.company.auditoria.api.config.deadline;
+
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import gustavo.company.exception.RequestTimeout;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Runs database work in a transaction whose timeout is the time left before
+ * the current request's deadline. Hibernate and {@code JdbcTemplate} apply the
+ * transaction timeout to every statement as its JDBC query timeout.
+ * <p>
+ * Inside a transaction that is already open the timeout cannot change, so
+ * PostgreSQL's {@code statement_timeout} is set to the time left instead,
+ * until that transaction ends.
+ */
+@Component
+public class DeadlineTransactions {
+
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    public DeadlineTransactions(PlatformTransactionManager transactionManager, EntityManager entityManager) {
+        this.transactionManager = transactionManager;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @param operation name of the work, for the error message
+     * @param work      read-only database work
+     * @return result of the work
+     * @throws RequestTimeout if the deadline has already passed
+     */
+    public <T> T readOnly(String operation, Supplier<T> work) {
+        return execute(true, operation, work);
+    }
+
+    /**
+     * @param operation name of the work, for the error message
+     * @param work      database work that writes
+     * @return result of the work
+     * @throws RequestTimeout if the deadline has already passed
+     */
+    public <T> T readWrite(String operation, Supplier<T> work) {
+        return execute(false, operation, work);
+    }
+
+    /**
+     * @return timeout for a new transaction, in whole seconds rounded up, or
+     *         the default when the current thread has no deadline
+     * @throws RequestTimeout if the deadline has already passed
+     */
+    public static int timeoutSeconds(String operation) {
+        final Deadline deadline = Deadline.current();
+        if (deadline == null) return TransactionDefinition.TIMEOUT_DEFAULT;
+        deadline.check(operation);
+        return (int) Math.max(1, Math.ceilDiv(deadline.remainingMillis(), 1000));
+    }
+
+    private <T> T execute(boolean readOnly, String operation, Supplier<T> work) {
+        final int timeout = timeoutSeconds(operation);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            if (timeout != TransactionDefinition.TIMEOUT_DEFAULT) {
+                limitStatements(Deadline.current());
+            }
+            return work.get();
+        }
+
+        final DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(readOnly);
+        definition.setTimeout(timeout);
+        return new TransactionTemplate(transactionManager, definition).execute(status -> work.get());
+    }
+
+    /**
+     * Bounds the statements of the joined transaction by the time left. The
+     * setting lasts until the transaction ends, so later statements of the
+     * same request are bounded too, by no less than their real budget.
+     */
+    private void limitStatements(Deadline deadline) {
+        final long timeoutMillis = Math.max(1, deadline.remainingMillis());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL statement_timeout = " + timeoutMillis);
+            }
+        });
+    }
+}
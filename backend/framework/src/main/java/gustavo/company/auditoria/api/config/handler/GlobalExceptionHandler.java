@@ -4,6 +4,7 @@ import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -18,6 +19,8 @@ import gustavo.company.exception.InvalidData;
 import gustavo.company.exception.JWTException;
 import gustavo.company.exception.NotFound;
 import gustavo.company.exception.RequestTimeout;
+import gustavo.company.exception.ServiceUnavailable;
+import gustavo.company.exception.TooManyRequests;
 import gustavo.company.exception.Unauthorized;
 
 /**
@@ -163,13 +166,43 @@ public class GlobalExceptionHandler {
      * Trata exceções do tipo RequestTimeout.
      *
      * @param ex exceção RequestTimeout
-     * @return resposta HTTP com status 408 (Request Timeout) e mensagem da exceção
+     * @return resposta HTTP com status 504 (Gateway Timeout) e mensagem da exceção
      */
     @ExceptionHandler(RequestTimeout.class)
     public ResponseEntity<?> handleRequestTimeout(RequestTimeout ex) {
         return ResponseEntity
-                .status(HttpStatus.REQUEST_TIMEOUT)
-                .body(buildBody(HttpStatus.REQUEST_TIMEOUT, ex.getMessage()));
+                .status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(buildBody(HttpStatus.GATEWAY_TIMEOUT, ex.getMessage()));
+    }
+
+    /**
+     * Trata exceções do tipo ServiceUnavailable.
+     * Informa no cabeçalho Retry-After quando o cliente pode tentar novamente.
+     *
+     * @param ex exceção ServiceUnavailable
+     * @return resposta HTTP com status 503 (Service Unavailable) e mensagem da exceção
+     */
+    @ExceptionHandler(ServiceUnavailable.class)
+    public ResponseEntity<?> handleServiceUnavailable(ServiceUnavailable ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(buildBody(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage()));
+    }
+
+    /**
+     * Trata exceções do tipo TooManyRequests.
+     * Informa no cabeçalho Retry-After quando o cliente pode tentar novamente.
+     *
+     * @param ex exceção TooManyRequests
+     * @return resposta HTTP com status 429 (Too Many Requests) e mensagem da exceção
+     */
+    @ExceptionHandler(TooManyRequests.class)
+    public ResponseEntity<?> handleTooManyRequests(TooManyRequests ex) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(buildBody(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage()));
     }
 
     /**
@@ -0,0 +1,124 @@
+package gustavo.company.auditoria.api.config.http;
+
+import java.net.URI;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import gustavo.company.auditoria.api.config.deadline.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Outbound HTTP client used to call the RAG server.
+ * Connections are pooled and kept alive between calls, and every phase of a
+ * call (pool lease, connect, response) is bounded by a timeout.
+ */
+@Configuration
+@Slf4j
+public class RagHttpClientConfig {
+
+    /**
+     * Connection pool shared by every call to the RAG server.
+     *
+     * @param maxTotal         maximum number of open connections
+     * @param maxPerRoute      maximum number of open connections per RAG host
+     * @param connectTimeoutMs time allowed to establish a connection
+     * @param readTimeoutMs    maximum inactivity between two packets of a response
+     * @param keepAliveSeconds time an idle connection is kept for reuse
+     * @param meterRegistry    registry for the pool saturation gauges
+     * @return pooling connection manager
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager ragConnectionManager(
+            @Value("${rag.api.pool.max-total:50}") int maxTotal,
+            @Value("${rag.api.pool.max-per-route:50}") int maxPerRoute,
+            @Value("${rag.api.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${rag.api.read-timeout-ms:60000}") long readTimeoutMs,
+            @Value("${rag.api.pool.keep-alive-seconds:30}") long keepAliveSeconds,
+            MeterRegistry meterRegistry) {
+        log.info("RAG HTTP pool initialized with {} connections ({} per route)", maxTotal, maxPerRoute);
+        final PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(keepAliveSeconds / 2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(manager, "rag").bindTo(meterRegistry);
+        return manager;
+    }
+
+    /**
+     * HTTP client on top of the shared pool.
+     *
+     * @param connectionManager   pool of connections to the RAG server
+     * @param acquireTimeoutMs    time allowed to lease a connection from the pool
+     * @param responseTimeoutMs   time allowed for the RAG server to start answering
+     * @param keepAliveSeconds    time an idle connection is kept for reuse
+     * @return pooled HTTP client
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient ragHttpClient(PoolingHttpClientConnectionManager connectionManager,
+            @Value("${rag.api.pool.acquire-timeout-ms:5000}") long acquireTimeoutMs,
+            @Value("${rag.api.response-timeout-ms:60000}") long responseTimeoutMs,
+            @Value("${rag.api.pool.keep-alive-seconds:30}") long keepAliveSeconds) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofSeconds(keepAliveSeconds))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(keepAliveSeconds))
+                .build();
+    }
+
+    /**
+     * Client for calls to the RAG server. A call made on behalf of a request
+     * with a deadline waits for a pooled connection, and for the response, no
+     * longer than the time the request has left.
+     *
+     * @param ragHttpClient     pooled HTTP client
+     * @param acquireTimeoutMs  time allowed to lease a connection from the pool
+     * @param responseTimeoutMs time allowed for the RAG server to start answering
+     * @return REST client for the RAG server
+     */
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient ragHttpClient,
+            @Value("${rag.api.pool.acquire-timeout-ms:5000}") long acquireTimeoutMs,
+            @Value("${rag.api.response-timeout-ms:60000}") long responseTimeoutMs) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(ragHttpClient) {
+            @Override
+            protected HttpContext createHttpContext(HttpMethod httpMethod, URI uri) {
+                final Deadline deadline = Deadline.current();
+                if (deadline == null) return null;
+
+                final HttpClientContext context = HttpClientContext.create();
+                context.setRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(deadline.capMillis(acquireTimeoutMs)))
+                        .setResponseTimeout(Timeout.ofMilliseconds(deadline.capMillis(responseTimeoutMs)))
+                        .build());
+                return context;
+            }
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package gustavo.company.auditoria.api.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("gustavo.company.Auth")
+@Label("Authentication")
+@Description("Login or registration, including the time spent hashing or checking the password")
+@Category({ "CheckDocsAI", "Auth" })
+@StackTrace(false)
+public class AuthEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Hash Time")
+    @Description("Time spent hashing or checking the password, including the wait for a hashing thread")
+    @Timespan(Timespan.NANOSECONDS)
+    public long hashTime;
+}
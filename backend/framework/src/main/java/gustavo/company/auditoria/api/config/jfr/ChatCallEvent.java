@@ -0,0 +1,33 @@
+package gustavo.company.auditoria.api.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gustavo.company.ChatCall")
+@Label("Chat Call")
+@Description("Call to the RAG server")
+@Category({ "CheckDocsAI", "Chat" })
+@StackTrace(false)
+public class ChatCallEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Request Size")
+    @Description("UTF-8 size of the question")
+    @DataAmount(DataAmount.BYTES)
+    public long requestSize;
+
+    @Label("Response Size")
+    @Description("UTF-8 size of the answer, summed over the chunks when streamed")
+    @DataAmount(DataAmount.BYTES)
+    public long responseSize;
+}
@@ -0,0 +1,147 @@
+package gustavo.company.auditoria.api.config.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import gustavo.company.exception.BadRequest;
+import gustavo.company.exception.Conflict;
+import gustavo.company.exception.InternalServerError;
+import gustavo.company.exception.NotFound;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Starts and stops on-demand Java Flight Recorder recordings. At most one
+ * recording runs at a time. The file is written to {@code jfr.dump-dir} when
+ * the recording is stopped, or when it reaches {@code jfr.max-duration-minutes},
+ * so a forgotten recording does not run forever.
+ */
+@Component
+@Slf4j
+public class FlightRecordingManager {
+
+    private static final List<String> SETTINGS = List.of("default", "profile");
+    private static final List<Class<? extends jdk.jfr.Event>> APP_EVENTS = List.of(
+            AuthEvent.class, TokenVerificationEvent.class, UserQueryEvent.class, ChatCallEvent.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path dumpDir;
+    private final Duration maxDuration;
+    private Recording recording;
+
+    public FlightRecordingManager(
+            @Value("${jfr.dump-dir:logs/jfr}") String dumpDir,
+            @Value("${jfr.max-duration-minutes:30}") long maxDurationMinutes) {
+        this.dumpDir = Path.of(dumpDir);
+        this.maxDuration = Duration.ofMinutes(maxDurationMinutes);
+    }
+
+    /**
+     * Starts a recording with the JDK's settings plus the application events.
+     *
+     * @param settings JDK settings to use: "default" (low overhead) or "profile"
+     * @return state of the new recording
+     * @throws BadRequest          if the settings are unknown
+     * @throws Conflict            if a recording is already running
+     * @throws InternalServerError if the recording cannot be started
+     */
+    public synchronized Map<String, Object> start(final String settings) {
+        if (!SETTINGS.contains(settings)) {
+            throw new BadRequest("Unknown recording settings: " + settings);
+        }
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new Conflict("A recording is already running");
+        }
+        closeRecording();
+
+        try {
+            Files.createDirectories(dumpDir);
+            final Recording started = new Recording(Configuration.getConfiguration(settings));
+            started.setName("checkdocs-" + LocalDateTime.now().format(FILE_TIMESTAMP));
+            APP_EVENTS.forEach(event -> started.enable(event).withoutStackTrace());
+            started.setDestination(dumpDir.resolve(started.getName() + ".jfr"));
+            started.setDuration(maxDuration);
+            started.setToDisk(true);
+            started.start();
+            recording = started;
+            log.info("Started JFR recording {} with '{}' settings", started.getName(), settings);
+            return status();
+        } catch (IOException | ParseException e) {
+            log.error("Could not start JFR recording", e);
+            throw new InternalServerError("Could not start recording", e);
+        }
+    }
+
+    /**
+     * Stops the running recording and writes it to disk.
+     *
+     * @return state of the recording, including the file it was written to
+     * @throws NotFound if no recording was started
+     */
+    public synchronized Map<String, Object> stop() {
+        if (recording == null) {
+            throw new NotFound("No recording was started");
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Stopped JFR recording {}, written to {}", recording.getName(), recording.getDestination());
+        }
+        final Map<String, Object> status = status();
+        closeRecording();
+        return status;
+    }
+
+    /**
+     * @return state of the running recording, or of the last one if it reached
+     *         its maximum duration
+     * @throws NotFound if no recording was started
+     */
+    public synchronized Map<String, Object> status() {
+        if (recording == null) {
+            throw new NotFound("No recording was started");
+        }
+        final Map<String, Object> status = new HashMap<>();
+        status.put("name", recording.getName());
+        status.put("state", recording.getState().name());
+        status.put("startedAt", String.valueOf(recording.getStartTime()));
+        status.put("maxDurationSeconds", maxDuration.toSeconds());
+        status.put("file", recording.getDestination().toAbsolutePath().toString());
+        try {
+            status.put("fileSizeBytes", Files.exists(recording.getDestination())
+                    ? Files.size(recording.getDestination())
+                    : 0L);
+        } catch (IOException e) {
+            status.put("fileSizeBytes", 0L);
+        }
+        return status;
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        closeRecording();
+    }
+
+    private void closeRecording() {
+        if (recording != null && recording.getState() != RecordingState.RUNNING) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
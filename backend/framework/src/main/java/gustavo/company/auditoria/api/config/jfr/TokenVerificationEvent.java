@@ -0,0 +1,20 @@
+package gustavo.company.auditoria.api.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gustavo.company.TokenVerification")
+@Label("Token Verification")
+@Description("Validation of a JWT token")
+@Category({ "CheckDocsAI", "Auth" })
+@StackTrace(false)
+public class TokenVerificationEvent extends Event {
+
+    @Label("Result")
+    @Description("cached, verified or invalid")
+    public String result;
+}
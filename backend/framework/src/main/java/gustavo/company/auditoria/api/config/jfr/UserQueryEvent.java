@@ -0,0 +1,19 @@
+package gustavo.company.auditoria.api.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gustavo.company.UserQuery")
+@Label("User Query")
+@Description("Read or write of the users table")
+@Category({ "CheckDocsAI", "Database" })
+@StackTrace(false)
+public class UserQueryEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+}
@@ -0,0 +1,62 @@
+package gustavo.company.auditoria.api.config.ratelimit;
+
+import java.lang.reflect.Type;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import gustavo.company.auditoria.api.adapter.dto.request.chatBot.BatchQuestionRequestDTO;
+import gustavo.company.auditoria.api.adapter.dto.request.chatBot.QuestionRequestDTO;
+import gustavo.company.auditoria.api.config.security.AuthenticatedUser;
+import gustavo.company.utils.TextNormalizer;
+import jakarta.validation.Validator;
+
+/**
+ * Charges a batch of questions against the {@code rag.batch.rate-limit-policy}
+ * policy, one token per distinct question, as its body is read. Only batches
+ * that pass validation are charged; the others are rejected right after.
+ */
+@ControllerAdvice
+public class BatchRateLimitAdvice extends RequestBodyAdviceAdapter {
+
+    private final RateLimiter rateLimiter;
+    private final Validator validator;
+    private final String policy;
+
+    public BatchRateLimitAdvice(RateLimiter rateLimiter, Validator validator,
+            @Value("${rag.batch.rate-limit-policy:chat}") String policy) {
+        this.rateLimiter = rateLimiter;
+        this.validator = validator;
+        this.policy = policy;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+            Class<? extends HttpMessageConverter<?>> converterType) {
+        return targetType == BatchQuestionRequestDTO.class;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+            Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) return body;
+
+        final BatchQuestionRequestDTO batch = (BatchQuestionRequestDTO) body;
+        if (!validator.validate(batch).isEmpty()) return body;
+
+        final int distinct = (int) batch.questions().stream()
+                .map(QuestionRequestDTO::message)
+                .map(TextNormalizer::normalize)
+                .distinct()
+                .count();
+        rateLimiter.acquire(policy, user.id(), distinct);
+        return body;
+    }
+}
@@ -0,0 +1,54 @@
+package gustavo.company.auditoria.api.config.ratelimit;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import gustavo.company.auditoria.api.config.security.AuthenticatedUser;
+import gustavo.company.auditoria.api.config.security.SecurityFilter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Applies the configured rate limit policies to authenticated requests,
+ * charging one token per request to the user resolved by {@link SecurityFilter}.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+    private final List<Map.Entry<PathPattern, String>> patterns;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        this.patterns = rateLimiter.getPolicies().entrySet().stream()
+                .flatMap(policy -> policy.getValue().paths().stream()
+                        .map(path -> Map.entry(PathPatternParser.defaultInstance.parse(path), policy.getKey())))
+                .toList();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // async dispatches resume requests that were already admitted
+        if (request.getDispatcherType() != DispatcherType.REQUEST) return true;
+
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) return true;
+
+        final PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (Map.Entry<PathPattern, String> pattern : patterns) {
+            if (pattern.getKey().matches(path)) {
+                rateLimiter.acquire(pattern.getValue(), user.id(), 1);
+            }
+        }
+        return true;
+    }
+}
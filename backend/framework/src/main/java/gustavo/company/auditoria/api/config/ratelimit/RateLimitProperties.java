@@ -0,0 +1,39 @@
+package gustavo.company.auditoria.api.config.ratelimit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Per-user rate limit settings.
+ *
+ * @param idleTimeout     how long an unused bucket is kept before eviction
+ * @param maxTrackedUsers upper bound on the number of buckets kept in memory
+ * @param policies        limits by policy name, each applied to a set of paths
+ */
+@ConfigurationProperties(prefix = "rate-limit")
+public record RateLimitProperties(
+        Duration idleTimeout,
+        long maxTrackedUsers,
+        Map<String, Policy> policies) {
+
+    public RateLimitProperties {
+        idleTimeout = idleTimeout == null ? Duration.ofMinutes(10) : idleTimeout;
+        maxTrackedUsers = maxTrackedUsers <= 0 ? 100_000 : maxTrackedUsers;
+        policies = policies == null ? Map.of() : policies;
+    }
+
+    /**
+     * @param paths           path patterns the policy applies to
+     * @param capacity        burst size, i.e. requests allowed at once after idling
+     * @param refillPerMinute sustained requests per minute
+     */
+    public record Policy(List<String> paths, int capacity, int refillPerMinute) {
+
+        public Policy {
+            paths = paths == null ? List.of() : paths;
+        }
+    }
+}
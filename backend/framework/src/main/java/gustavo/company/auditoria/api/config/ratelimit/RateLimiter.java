@@ -0,0 +1,111 @@
+package gustavo.company.auditoria.api.config.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gustavo.company.exception.BadRequest;
+import gustavo.company.exception.TooManyRequests;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process, per-user token buckets.
+ * <p>
+ * Each bucket is kept as a single "theoretical arrival time" updated with a
+ * compare-and-set (the GCRA formulation of a token bucket), so admission is
+ * lock-free and the exact wait until the next token is known. Buckets that go
+ * unused for {@code rate-limit.idle-timeout} are evicted.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    private final Map<String, RateLimitProperties.Policy> policies;
+    private final Cache<BucketKey, Bucket> buckets;
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.policies = properties.policies();
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(properties.idleTimeout())
+                .maximumSize(properties.maxTrackedUsers())
+                .build();
+        policies.forEach((name, policy) -> log.info("Rate limit '{}': burst of {}, {} per minute on {}",
+                name, policy.capacity(), policy.refillPerMinute(), policy.paths()));
+    }
+
+    /**
+     * Takes {@code permits} tokens from the user's bucket for the given policy.
+     *
+     * @param policyName name of the policy under {@code rate-limit.policies}
+     * @param userId     user making the request
+     * @param permits    tokens to take
+     * @throws BadRequest      if more tokens are asked than the bucket can hold
+     * @throws TooManyRequests if the bucket does not hold enough tokens, with the
+     *                         time until it will as retry delay
+     */
+    public void acquire(String policyName, UUID userId, int permits) {
+        final RateLimitProperties.Policy policy = policies.get(policyName);
+        if (policy == null) return;
+        if (permits > policy.capacity()) {
+            throw new BadRequest("Request exceeds the limit of " + policy.capacity() + " questions at once");
+        }
+
+        final Bucket bucket = buckets.get(new BucketKey(policyName, userId), key -> new Bucket(policy));
+        final long waitNanos = bucket.tryAcquire(permits);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1);
+            log.warn("Rate limit '{}' exceeded by user {}, retry in {}s", policyName, userId, retryAfterSeconds);
+            throw new TooManyRequests("Too many requests, try again later", retryAfterSeconds);
+        }
+    }
+
+    /**
+     * @return configured policies by name
+     */
+    public Map<String, RateLimitProperties.Policy> getPolicies() {
+        return policies;
+    }
+
+    private record BucketKey(String policy, UUID userId) {
+    }
+
+    private static final class Bucket {
+
+        private final long emissionIntervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+        Bucket(RateLimitProperties.Policy policy) {
+            this.emissionIntervalNanos = Duration.ofMinutes(1).toNanos() / Math.max(1, policy.refillPerMinute());
+            this.toleranceNanos = emissionIntervalNanos * Math.max(1, policy.capacity());
+        }
+
+        /**
+         * @return 0 if the tokens were taken, otherwise nanoseconds until they
+         *         would be available
+         */
+        long tryAcquire(int permits) {
+            final long cost = emissionIntervalNanos * permits;
+
+            while (true) {
+                final long now = System.nanoTime();
+                final long current = theoreticalArrival.get();
+                final long next = (current - now > 0 ? current : now) + cost;
+                final long allowedAt = next - toleranceNanos;
+                if (allowedAt - now > 0) {
+                    return allowedAt - now;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package gustavo.company.auditoria.api.config.security;
+
+import java.util.UUID;
+
+import gustavo.company.entity.UserDomain;
+
+/**
+ * Principal of an authenticated request, resolved once by
+ * {@link SecurityFilter}. Controllers receive it with
+ * {@code @AuthenticationPrincipal} instead of decoding the token cookie and
+ * loading the user again.
+ *
+ * @param id   user ID
+ * @param name user display name
+ */
+public record AuthenticatedUser(UUID id, String name) {
+
+    static AuthenticatedUser of(UserDomain user) {
+        return new AuthenticatedUser(user.id(), user.name());
+    }
+}
@@ -1,8 +1,10 @@
 package gustavo.company.auditoria.api.config.security;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -15,11 +17,16 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import gustavo.company.auditoria.api.config.handler.CustomAuthenticationEntryPoint;
+import jakarta.servlet.DispatcherType;
+import lombok.extern.slf4j.Slf4j;
 
 @Configuration
 @EnableWebSecurity
+@Slf4j
 public class SecurityConfig {
 
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+
     private final SecurityFilter securityFilter;
     private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
     private final String[] publicMatchers;
@@ -40,7 +47,10 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        // async dispatches resume requests that were already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(publicMatchers).permitAll()
+                        .requestMatchers("/api/v1/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .exceptionHandling(exception -> exception.authenticationEntryPoint(customAuthenticationEntryPoint))
                 .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class);
@@ -48,9 +58,67 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Chain of the actuator endpoints, served on the internal
+     * {@code management.server.port} only. Health checks and the Prometheus
+     * scrape carry no user cookie, so they are open there; any other endpoint
+     * is refused.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(authorize -> authorize
+                        .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                        .anyRequest().denyAll());
+
+        return http.build();
+    }
+
+    /**
+     * BCrypt encoder with the configured strength. With
+     * {@code password.bcrypt.auto-tune}, off by default, the strength is tuned at
+     * startup instead: starting from the configured strength, it is raised while
+     * one hash still takes no longer than the target time on this machine. Every
+     * round doubles the CPU time of logins and registrations, so turn it on only
+     * where the hashing executor has the cores for it. Existing hashes keep
+     * working, as each hash carries its own strength.
+     *
+     * @param strength     BCrypt strength (log rounds), the floor when tuning
+     * @param autoTune     whether to raise the strength towards the target
+     * @param targetHashMs target duration of one hash, in milliseconds
+     * @return password encoder
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${password.bcrypt.strength:10}") int strength,
+            @Value("${password.bcrypt.auto-tune:false}") boolean autoTune,
+            @Value("${password.bcrypt.target-hash-ms:250}") long targetHashMs) {
+        final int tuned = autoTune ? tuneBCryptStrength(strength, targetHashMs) : strength;
+        log.info("BCrypt password encoder using strength {}", tuned);
+        return new BCryptPasswordEncoder(tuned);
+    }
+
+    private static int tuneBCryptStrength(int minimum, long targetHashMs) {
+        int strength = minimum;
+        new BCryptPasswordEncoder(strength).encode("warm-up");
+        long elapsedMs = timeBCrypt(strength);
+        // each extra round doubles the hashing time
+        while (strength < MAX_BCRYPT_STRENGTH && elapsedMs * 2 <= targetHashMs) {
+            strength++;
+            elapsedMs = timeBCrypt(strength);
+        }
+        return strength;
+    }
+
+    private static long timeBCrypt(int strength) {
+        final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        final long start = System.nanoTime();
+        encoder.encode("calibration");
+        return (System.nanoTime() - start) / 1_000_000;
     }
 
     // Para injetar AuthenticationManager, usado por exemplo no login
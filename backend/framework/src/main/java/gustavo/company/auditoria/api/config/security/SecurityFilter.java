@@ -2,63 +2,122 @@ package gustavo.company.auditoria.api.config.security;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Optional;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
-
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import gustavo.company.auditoria.api.config.tracing.RequestTrace;
+import gustavo.company.auditoria.api.config.tracing.Span;
+import gustavo.company.auditoria.api.config.tracing.Tracer;
 import gustavo.company.entity.UserDomain;
 import gustavo.company.repository.UserRepository;
 import gustavo.company.utils.JWTUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 
-@RequiredArgsConstructor
 @Component
 public class SecurityFilter extends OncePerRequestFilter {
 
+    private static final SimpleGrantedAuthority ROLE_USER = new SimpleGrantedAuthority("ROLE_USER");
+    private static final SimpleGrantedAuthority ROLE_ADMIN = new SimpleGrantedAuthority("ROLE_ADMIN");
+
     private final JWTUtils jwtUtils;
     private final UserRepository userRepository;
+    private final Set<String> adminEmails;
+    private final Tracer tracer;
+    private final Timer authenticatedTimer;
+    private final Timer rejectedTimer;
+
+    public SecurityFilter(JWTUtils jwtUtils, UserRepository userRepository,
+            @Value("${spring.security.admin-emails:}") String[] adminEmails, Tracer tracer,
+            MeterRegistry meterRegistry) {
+        this.jwtUtils = jwtUtils;
+        this.tracer = tracer;
+        this.userRepository = userRepository;
+        this.adminEmails = Arrays.stream(adminEmails)
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.authenticatedTimer = meterRegistry.timer("auth.filter.duration", "outcome", "authenticated");
+        this.rejectedTimer = meterRegistry.timer("auth.filter.duration", "outcome", "rejected");
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws IOException, ServletException {
 
-        if (shouldNotFilter(request)) {
+        final RequestTrace trace = tracer.begin(request.getHeader(Tracer.TRACE_ID_HEADER),
+                request.getMethod() + " " + request.getRequestURI());
+        if (trace != null) {
+            response.setHeader(Tracer.TRACE_ID_HEADER, trace.traceId());
+        }
+
+        try {
+            if (!shouldNotFilter(request)) {
+                authenticate(request);
+            }
             filterChain.doFilter(request, response);
-            return;
+        } finally {
+            tracer.detach();
+            if (trace != null) {
+                if (request.isAsyncStarted()) {
+                    request.getAsyncContext().addListener(new TraceEndListener(tracer, trace));
+                } else {
+                    tracer.end(trace, response.getStatus());
+                }
+            }
         }
+    }
 
+    private void authenticate(HttpServletRequest request) {
         String token = recoverToken(request);
-        if (token != null) {
-            try {
-                String userId = jwtUtils.validateAndExtractUserId(token);
-                UUID userIdToUUID = UUID.fromString(userId);
+        if (token == null) return;
 
-                if (userId != null) {
-
-                    Optional<UserDomain> user = userRepository.findById(userIdToUUID);
+        final long start = System.nanoTime();
+        try {
+            String userId;
+            try (Span span = Tracer.span("jwt.verify")) {
+                userId = jwtUtils.validateAndExtractUserId(token);
+            }
 
-                    var authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
-                    var authentication = new UsernamePasswordAuthenticationToken(user, null, authorities);
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
+            if (userId != null) {
+                try (Span span = Tracer.span("user.lookup")) {
+                    userRepository.findById(UUID.fromString(userId)).ifPresent(user -> {
+                        var authorities = isAdmin(user) ? List.of(ROLE_USER, ROLE_ADMIN) : List.of(ROLE_USER);
+                        var authentication = new UsernamePasswordAuthenticationToken(
+                                AuthenticatedUser.of(user), null, authorities);
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                    });
                 }
-            } catch (Exception e) {
-                SecurityContextHolder.clearContext();
             }
+        } catch (Exception e) {
+            SecurityContextHolder.clearContext();
         }
+        final Timer timer = SecurityContextHolder.getContext().getAuthentication() != null
+                ? authenticatedTimer
+                : rejectedTimer;
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
 
-        filterChain.doFilter(request, response);
+    private boolean isAdmin(UserDomain user) {
+        return adminEmails.contains(user.email().toLowerCase(Locale.ROOT));
     }
 
     private String recoverToken(HttpServletRequest request) {
@@ -74,4 +133,29 @@ public class SecurityFilter extends OncePerRequestFilter {
                 .orElse(null);
     }
 
+    /**
+     * Ends the trace of an asynchronous request once the response is complete.
+     */
+    private record TraceEndListener(Tracer tracer, RequestTrace trace) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            tracer.end(trace, ((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            tracer.end(trace, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            tracer.end(trace, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
 }
@@ -0,0 +1,129 @@
+package gustavo.company.auditoria.api.config.tracing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes sampled traces to a local file, one JSON object per line.
+ * Writing happens on a single background thread behind a bounded queue; when
+ * the queue is full the trace is dropped and counted, so a slow disk never
+ * slows down requests.
+ */
+@Component
+@Slf4j
+public class FileTraceExporter {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor writer;
+    private final Counter exported;
+    private BufferedWriter out;
+
+    public FileTraceExporter(
+            @Value("${tracing.file:logs/traces.jsonl}") String file,
+            @Value("${tracing.queue-capacity:1000}") int queueCapacity,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.file = Path.of(file);
+        this.objectMapper = objectMapper;
+        this.exported = meterRegistry.counter("tracing.traces.exported");
+        final Counter dropped = meterRegistry.counter("tracing.traces.dropped");
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("trace-exporter").daemon(true).factory(),
+                (task, executor) -> dropped.increment());
+        log.info("Exporting sampled traces to {}", this.file.toAbsolutePath());
+    }
+
+    /**
+     * Queues a finished trace for writing.
+     *
+     * @param trace         finished trace
+     * @param durationNanos duration of the whole request
+     * @param status        HTTP status of the response
+     * @param reason        why the trace was kept: head, slow or error
+     */
+    void export(RequestTrace trace, long durationNanos, int status, String reason) {
+        writer.execute(() -> write(trace, durationNanos, status, reason));
+    }
+
+    private void write(RequestTrace trace, long durationNanos, int status, String reason) {
+        final Map<String, Object> line = new LinkedHashMap<>();
+        line.put("traceId", trace.traceId());
+        line.put("name", trace.name());
+        line.put("startedAt", trace.startedAtMillis());
+        line.put("durationMs", durationNanos / NANOS_PER_MILLI);
+        line.put("status", status);
+        line.put("sampled", reason);
+        line.put("spans", toSpans(trace.spans()));
+
+        try {
+            if (out == null) {
+                final Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) Files.createDirectories(parent);
+                out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            out.write(objectMapper.writeValueAsString(line));
+            out.newLine();
+            if (writer.getQueue().isEmpty()) out.flush();
+            exported.increment();
+        } catch (IOException e) {
+            log.warn("Could not write trace {} to {}", trace.traceId(), file, e);
+            closeQuietly();
+        }
+    }
+
+    private static List<Map<String, Object>> toSpans(List<RequestTrace.FinishedSpan> spans) {
+        return spans.stream()
+                .sorted((a, b) -> Long.compare(a.offsetNanos(), b.offsetNanos()))
+                .map(span -> {
+                    final Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("name", span.name());
+                    entry.put("thread", span.thread());
+                    entry.put("offsetMs", span.offsetNanos() / NANOS_PER_MILLI);
+                    entry.put("durationMs", span.durationNanos() / NANOS_PER_MILLI);
+                    return entry;
+                })
+                .toList();
+    }
+
+    private void closeQuietly() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // the file is reopened on the next trace
+        }
+        out = null;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        closeQuietly();
+    }
+}
@@ -0,0 +1,77 @@
+package gustavo.company.auditoria.api.config.tracing;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Spans recorded while serving one HTTP request. Spans may be finished on any
+ * thread (e.g. the virtual thread calling the RAG server), so they are kept
+ * in a concurrent queue.
+ */
+public final class RequestTrace {
+
+    private final String traceId;
+    private final String name;
+    private final long startedAtMillis;
+    private final long startNanos;
+    private final boolean headSampled;
+    private final Queue<FinishedSpan> spans = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean ended = new AtomicBoolean();
+
+    RequestTrace(String traceId, String name, boolean headSampled) {
+        this.traceId = traceId;
+        this.name = name;
+        this.headSampled = headSampled;
+        this.startedAtMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    public String traceId() {
+        return traceId;
+    }
+
+    String name() {
+        return name;
+    }
+
+    long startedAtMillis() {
+        return startedAtMillis;
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    boolean headSampled() {
+        return headSampled;
+    }
+
+    List<FinishedSpan> spans() {
+        return List.copyOf(spans);
+    }
+
+    void add(FinishedSpan span) {
+        spans.add(span);
+    }
+
+    /**
+     * @return true only for the first call, so a trace is ended once even when
+     *         several async events report the end of the request
+     */
+    boolean markEnded() {
+        return ended.compareAndSet(false, true);
+    }
+
+    /**
+     * A span that has ended.
+     *
+     * @param name          what was timed
+     * @param thread        thread the span started on
+     * @param offsetNanos   start of the span, relative to the start of the trace
+     * @param durationNanos duration of the span
+     */
+    record FinishedSpan(String name, String thread, long offsetNanos, long durationNanos) {
+    }
+}
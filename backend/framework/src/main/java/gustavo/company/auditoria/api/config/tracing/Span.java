@@ -0,0 +1,35 @@
+package gustavo.company.auditoria.api.config.tracing;
+
+/**
+ * A timed section of a request, ended by {@link #close()}. Meant to be used
+ * with try-with-resources. Outside of a traced request {@link #NOOP} is handed
+ * out instead, so untraced code pays nothing.
+ */
+public final class Span implements AutoCloseable {
+
+    static final Span NOOP = new Span(null, null);
+
+    private final RequestTrace trace;
+    private final String name;
+    private final String thread;
+    private final long startNanos;
+    private boolean closed;
+
+    Span(RequestTrace trace, String name) {
+        this.trace = trace;
+        this.name = name;
+        this.thread = trace != null ? Thread.currentThread().getName() : null;
+        this.startNanos = trace != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Ends the span and adds it to its trace. Further calls do nothing.
+     */
+    @Override
+    public void close() {
+        if (trace == null || closed) return;
+        closed = true;
+        trace.add(new RequestTrace.FinishedSpan(name, thread,
+                startNanos - trace.startNanos(), System.nanoTime() - startNanos));
+    }
+}
@@ -0,0 +1,134 @@
+package gustavo.company.auditoria.api.config.tracing;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Request-scoped tracing. A trace is started for every request by
+ * {@code SecurityFilter} and bound to the request thread; code on that thread
+ * opens spans with {@link #span(String)}, while work handed to other threads
+ * captures {@link #current()} first and uses {@link #span(RequestTrace, String)}.
+ * <p>
+ * Every request records its spans, which is only a few small objects. When the
+ * request ends, the trace is exported if it was picked by head sampling
+ * ({@code tracing.sample-rate}), took at least {@code tracing.slow-threshold-ms}
+ * or failed with a 5xx status; every other trace is dropped.
+ */
+@Component
+@Slf4j
+public class Tracer {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+    public static final String MDC_KEY = "traceId";
+
+    private static final Pattern TRACE_ID = Pattern.compile("[0-9a-f]{32}");
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final FileTraceExporter exporter;
+
+    public Tracer(
+            @Value("${tracing.enabled:true}") boolean enabled,
+            @Value("${tracing.sample-rate:0.01}") double sampleRate,
+            @Value("${tracing.slow-threshold-ms:2000}") long slowThresholdMs,
+            FileTraceExporter exporter) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.exporter = exporter;
+        log.info("Tracing {} with sample rate {} and slow threshold of {} ms",
+                enabled ? "enabled" : "disabled", sampleRate, slowThresholdMs);
+    }
+
+    /**
+     * Starts the trace of a request and binds it to the current thread and to
+     * the logging MDC.
+     *
+     * @param incomingTraceId trace ID sent by the caller; reused if well formed
+     * @param name            name of the request, e.g. method and path
+     * @return the trace, or null if tracing is disabled
+     */
+    public RequestTrace begin(String incomingTraceId, String name) {
+        if (!enabled) return null;
+
+        final String traceId = incomingTraceId != null && TRACE_ID.matcher(incomingTraceId).matches()
+                ? incomingTraceId
+                : newTraceId();
+        final RequestTrace trace = new RequestTrace(traceId, name,
+                ThreadLocalRandom.current().nextDouble() < sampleRate);
+        CURRENT.set(trace);
+        MDC.put(MDC_KEY, traceId);
+        return trace;
+    }
+
+    /**
+     * Unbinds the trace from the current thread. The trace itself stays open
+     * until {@link #end(RequestTrace, int)}.
+     */
+    public void detach() {
+        CURRENT.remove();
+        MDC.remove(MDC_KEY);
+    }
+
+    /**
+     * Ends a trace and exports it if it is sampled.
+     *
+     * @param trace  trace to end; ignored if null
+     * @param status HTTP status of the response
+     */
+    public void end(RequestTrace trace, int status) {
+        if (trace == null || !trace.markEnded()) return;
+
+        final long durationNanos = System.nanoTime() - trace.startNanos();
+        final String reason = status >= 500 ? "error"
+                : durationNanos >= slowThresholdNanos ? "slow"
+                : trace.headSampled() ? "head"
+                : null;
+        if (reason != null) {
+            exporter.export(trace, durationNanos, status, reason);
+        }
+    }
+
+    /**
+     * @return trace of the request served by the current thread, or null
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Opens a span in the trace of the current thread.
+     *
+     * @param name what is being timed
+     * @return span to close when the section ends
+     */
+    public static Span span(String name) {
+        return span(CURRENT.get(), name);
+    }
+
+    /**
+     * Opens a span in the given trace, from any thread.
+     *
+     * @param trace trace captured on the request thread; may be null
+     * @param name  what is being timed
+     * @return span to close when the section ends
+     */
+    public static Span span(RequestTrace trace, String name) {
+        return trace == null ? Span.NOOP : new Span(trace, name);
+    }
+
+    private static String newTraceId() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return HexFormat.of().toHexDigits(random.nextLong()) + HexFormat.of().toHexDigits(random.nextLong());
+    }
+}
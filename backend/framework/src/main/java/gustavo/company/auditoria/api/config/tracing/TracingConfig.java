@@ -0,0 +1,19 @@
+package gustavo.company.auditoria.api.config.tracing;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@RequiredArgsConstructor
+public class TracingConfig implements WebMvcConfigurer {
+
+    private final TracingInterceptor tracingInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(tracingInterceptor);
+    }
+}
@@ -0,0 +1,48 @@
+package gustavo.company.auditoria.api.config.tracing;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records a span around the controller method of every traced request. For
+ * asynchronous handlers the span ends when the handler returns its future or
+ * emitter; the wait for the answer shows up in the spans of the work itself.
+ */
+@Component
+public class TracingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SPAN_ATTRIBUTE = TracingInterceptor.class.getName() + ".span";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST && handler instanceof HandlerMethod method) {
+            request.setAttribute(SPAN_ATTRIBUTE, Tracer.span("controller " + method.getBeanType().getSimpleName()
+                    + "#" + method.getMethod().getName()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        closeSpan(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        closeSpan(request);
+    }
+
+    private static void closeSpan(HttpServletRequest request) {
+        if (request.getAttribute(SPAN_ATTRIBUTE) instanceof Span span) {
+            request.removeAttribute(SPAN_ATTRIBUTE);
+            span.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package gustavo.company.auditoria.api.driver;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gustavo.company.entity.UserDomain;
+import gustavo.company.entity.UserSummary;
+import gustavo.company.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Size- and TTL-bounded near-cache of users by ID in front of
+ * {@link UserRepositoryImpl}.
+ * <p>
+ * Every authenticated request resolves its user by ID, while user rows almost
+ * never change, so serving those lookups from memory keeps the database off
+ * the auth path. Only users that exist are cached; lookups by email and name
+ * always go to the database.
+ */
+@Repository
+@Primary
+@Slf4j
+public class CachingUserRepository implements UserRepository {
+
+    private final UserRepositoryImpl delegate;
+    private final Cache<UUID, UserDomain> usersById;
+
+    public CachingUserRepository(
+            UserRepositoryImpl delegate,
+            @Value("${user.cache.max-size:10000}") long maxSize,
+            @Value("${user.cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users");
+        Gauge.builder("user.cache.hit.ratio", usersById, cache -> cache.stats().hitRate())
+                .register(meterRegistry);
+        log.info("User cache initialized with max size {} and TTL of {} seconds", maxSize, ttlSeconds);
+    }
+
+    /**
+     * Saves the user and drops any cached copy of it.
+     *
+     * @param user User to be saved
+     * @return Saved user
+     */
+    @Override
+    public UserDomain save(final UserDomain user) {
+        if (user.id() != null) {
+            usersById.invalidate(user.id());
+        }
+        final UserDomain saved = delegate.save(user);
+        usersById.invalidate(saved.id());
+        return saved;
+    }
+
+    @Override
+    public List<UserDomain> saveAllSkippingConflicts(final List<UserDomain> users) {
+        return delegate.saveAllSkippingConflicts(users);
+    }
+
+    @Override
+    public List<UserSummary> findPageAfter(final LocalDateTime createdAt, final UUID id, final int limit) {
+        return delegate.findPageAfter(createdAt, id, limit);
+    }
+
+    @Override
+    public void forEachSummary(final Consumer<UserSummary> consumer) {
+        delegate.forEachSummary(consumer);
+    }
+
+    @Override
+    public Optional<UserDomain> findByEmail(final String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public Optional<UserDomain> findByName(final String name) {
+        return delegate.findByName(name);
+    }
+
+    @Override
+    public boolean mightExistByEmail(final String email) {
+        return delegate.mightExistByEmail(email);
+    }
+
+    @Override
+    public boolean definitelyAbsentByEmail(final String email) {
+        return delegate.definitelyAbsentByEmail(email);
+    }
+
+    /**
+     * Finds a user by ID, from memory when it was looked up recently.
+     *
+     * @param userId UUID of the user to be searched
+     * @return Optional containing the user, if found
+     */
+    @Override
+    public Optional<UserDomain> findById(final UUID userId) {
+        if (userId == null) return delegate.findById(null);
+
+        final UserDomain cached = usersById.getIfPresent(userId);
+        if (cached != null) return Optional.of(cached);
+
+        final Optional<UserDomain> user = delegate.findById(userId);
+        user.ifPresent(found -> usersById.put(userId, found));
+        return user;
+    }
+}
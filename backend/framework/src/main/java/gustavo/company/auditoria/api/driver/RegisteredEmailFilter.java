@@ -0,0 +1,280 @@
+package gustavo.company.auditoria.api.driver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import gustavo.company.auditoria.api.driver.client.UserRepositoryOrm;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bloom filter of registered emails, compared case-insensitively.
+ * <p>
+ * The filter is built by streaming the {@code users} table, in the background
+ * once the application is ready, and rebuilt every
+ * {@code rebuild-interval-minutes}. Emails saved through this instance are added
+ * as their transaction commits, including those committed while a rebuild is
+ * reading the table. Users inserted by other instances only show up at the
+ * next rebuild.
+ * <p>
+ * So {@link #mightContain(String)} returning false only means this instance has
+ * not seen the email: good enough to skip a duplicate check the database
+ * enforces anyway, never to report a user as missing. That takes
+ * {@link #definitelyAbsent(String)}, which trusts a miss only with
+ * {@code trust-misses} set, for deployments where every registration goes
+ * through this instance, and only while the filter is built, not being rebuilt
+ * and no older than two rebuild intervals.
+ */
+@Component
+@Slf4j
+public class RegisteredEmailFilter {
+
+    private final UserRepositoryOrm userRepositoryOrm;
+    private final TransactionTemplate primaryTransaction;
+    private final boolean enabled;
+    private final int bitCount;
+    private final int hashCount;
+    private final boolean trustMisses;
+    private final long staleAfterNanos;
+
+    private final Object writes = new Object();
+    private volatile State state = new State(null, 0, false);
+    // emails committed while a rebuild reads the table, guarded by writes
+    private List<byte[]> writtenDuringRebuild;
+
+    public RegisteredEmailFilter(
+            UserRepositoryOrm userRepositoryOrm,
+            PlatformTransactionManager transactionManager,
+            @Value("${user.email-filter.enabled:true}") boolean enabled,
+            @Value("${user.email-filter.size-kb:256}") int sizeKb,
+            @Value("${user.email-filter.expected-users:100000}") long expectedUsers,
+            @Value("${user.email-filter.trust-misses:false}") boolean trustMisses,
+            @Value("${user.email-filter.rebuild-interval-minutes:60}") long rebuildIntervalMinutes,
+            MeterRegistry meterRegistry) {
+        this.userRepositoryOrm = userRepositoryOrm;
+        // not read-only, so the table is streamed from the primary: a lagging
+        // replica could miss emails committed just before the rebuild started
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.bitCount = (int) Math.clamp(sizeKb * 8192L, 64, Integer.MAX_VALUE - 63);
+        // optimal number of hash functions for the expected population
+        this.hashCount = Math.clamp(Math.round((double) bitCount / Math.max(1, expectedUsers) * Math.log(2)),
+                1, 16);
+        this.trustMisses = trustMisses;
+        this.staleAfterNanos = TimeUnit.MINUTES.toNanos(2 * rebuildIntervalMinutes);
+
+        Gauge.builder("user.email.filter.false.positive.rate", this, RegisteredEmailFilter::falsePositiveRate)
+                .description("Estimated probability that an unknown email is reported as possibly registered")
+                .register(meterRegistry);
+        Gauge.builder("user.email.filter.size", this,
+                filter -> filter.state.bits() == null ? 0 : filter.state.bits().count())
+                .register(meterRegistry);
+        Gauge.builder("user.email.filter.memory", () -> bitCount / 8)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param email email to check
+     * @return false if this instance has not seen the email registered; true if
+     *         it probably has, or if the filter is not built yet
+     */
+    public boolean mightContain(String email) {
+        final Bits bits = state.bits();
+        return bits == null || email == null || bits.mightContain(key(email));
+    }
+
+    /**
+     * @param email email to check
+     * @return true only if no user can be registered with this email: misses
+     *         are trusted and the filter is up to date
+     */
+    public boolean definitelyAbsent(String email) {
+        if (!trustMisses || email == null) return false;
+        final State snapshot = state;
+        final boolean upToDate = snapshot.bits() != null && !snapshot.rebuilding()
+                && System.nanoTime() - snapshot.builtAtNanos() < staleAfterNanos;
+        return upToDate && !snapshot.bits().mightContain(key(email));
+    }
+
+    /**
+     * Records a newly registered email, once the surrounding transaction, if
+     * any, commits; a rolled back insert leaves no trace in the filter.
+     *
+     * @param email registered email
+     */
+    public void add(String email) {
+        if (email == null) return;
+        final byte[] key = key(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(key);
+                }
+            });
+        } else {
+            put(key);
+        }
+    }
+
+    private void put(byte[] key) {
+        synchronized (writes) {
+            final Bits bits = state.bits();
+            if (bits != null) {
+                bits.put(key);
+            }
+            // a rebuild in progress may have read the table before this user was committed
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(key);
+            }
+        }
+    }
+
+    /**
+     * Builds the first filter on its own thread, so startup does not wait for
+     * the whole table to be read.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        if (!enabled) return;
+        Thread.ofVirtual().name("email-filter-build").start(this::rebuild);
+    }
+
+    @Scheduled(initialDelayString = "${user.email-filter.rebuild-interval-minutes:60}",
+            fixedDelayString = "${user.email-filter.rebuild-interval-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public synchronized void rebuild() {
+        if (!enabled) return;
+
+        final long start = System.nanoTime();
+        final Bits next = new Bits(bitCount, hashCount);
+        synchronized (writes) {
+            writtenDuringRebuild = new ArrayList<>();
+            state = new State(state.bits(), state.builtAtNanos(), true);
+        }
+        try {
+            primaryTransaction.executeWithoutResult(status -> {
+                try (Stream<String> emails = userRepositoryOrm.streamAllEmails()) {
+                    emails.forEach(email -> next.put(key(email)));
+                }
+            });
+            synchronized (writes) {
+                writtenDuringRebuild.forEach(next::put);
+                state = new State(next, System.nanoTime(), false);
+            }
+            log.info("Registered email filter built with {} emails in {} ms, estimated false positive rate {}",
+                    next.count(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), falsePositiveRate());
+        } catch (RuntimeException e) {
+            log.error("Could not build the registered email filter, keeping the previous one", e);
+        } finally {
+            synchronized (writes) {
+                writtenDuringRebuild = null;
+                if (state.rebuilding()) {
+                    state = new State(state.bits(), state.builtAtNanos(), false);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return estimated false positive rate for the current number of emails,
+     *         or 1 while the filter is not built
+     */
+    public double falsePositiveRate() {
+        final Bits bits = state.bits();
+        if (bits == null) return 1.0;
+        return Math.pow(1 - Math.exp(-(double) hashCount * bits.count() / bitCount), hashCount);
+    }
+
+    private static byte[] key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The filter in use, with when it was built and whether a rebuild is
+     * reading the table; replaced as a whole so readers need no lock.
+     */
+    private record State(Bits bits, long builtAtNanos, boolean rebuilding) {
+    }
+
+    /**
+     * Lock-free bit array addressed by double hashing.
+     */
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+        private final int bitCount;
+        private final int hashCount;
+        private final AtomicLong count = new AtomicLong();
+
+        Bits(int bitCount, int hashCount) {
+            this.words = new AtomicLongArray((bitCount + 63) / 64);
+            this.bitCount = bitCount;
+            this.hashCount = hashCount;
+        }
+
+        void put(byte[] key) {
+            final long h1 = hash(key);
+            final long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            boolean changed = false;
+            for (int i = 0; i < hashCount; i++) {
+                final int bit = (int) Long.remainderUnsigned(h1 + i * h2, bitCount);
+                final long mask = 1L << bit;
+                final long previous = words.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m);
+                changed |= (previous & mask) == 0;
+            }
+            if (changed) {
+                count.incrementAndGet();
+            }
+        }
+
+        boolean mightContain(byte[] key) {
+            final long h1 = hash(key);
+            final long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                final int bit = (int) Long.remainderUnsigned(h1 + i * h2, bitCount);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        /**
+         * FNV-1a over the key, finalized with the SplitMix64 mixer.
+         */
+        private static long hash(byte[] key) {
+            long h = 0xCBF29CE484222325L;
+            for (byte b : key) {
+                h ^= b & 0xFF;
+                h *= 0x100000001B3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package gustavo.company.auditoria.api.driver;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import gustavo.company.auditoria.api.config.deadline.DeadlineTransactions;
+import gustavo.company.auditoria.api.entity.UuidV7Generator;
+import gustavo.company.entity.UserDomain;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inserts users in bulk with the PostgreSQL COPY protocol.
+ * <p>
+ * Rows are streamed into a transaction-scoped temporary table and moved into
+ * {@code users} with {@code INSERT ... ON CONFLICT DO NOTHING}, so a duplicate
+ * email skips that row instead of aborting the batch.
+ */
+@Component
+@Slf4j
+class UserBulkInserter {
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMPORARY TABLE users_import (
+                id uuid, name text, email text, password text, created_at timestamp(6)
+            ) ON COMMIT DROP""";
+    private static final String COPY_STAGING =
+            "COPY users_import (id, name, email, password, created_at) FROM STDIN (FORMAT csv)";
+    private static final String INSERT_FROM_STAGING = """
+            INSERT INTO users (id, name, email, password, created_at)
+            SELECT id, name, email, password, created_at FROM users_import
+            ON CONFLICT DO NOTHING
+            RETURNING id""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DeadlineTransactions deadlineTransactions;
+
+    UserBulkInserter(JdbcTemplate jdbcTemplate, DeadlineTransactions deadlineTransactions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.deadlineTransactions = deadlineTransactions;
+    }
+
+    /**
+     * Inserts the users in one transaction. Users without an ID get a version 7
+     * UUID. The transaction, and each statement in it, is bounded by the
+     * request's deadline.
+     *
+     * @param users users to insert
+     * @return the users that were inserted, with their IDs; users whose email
+     *         is already taken are left out
+     */
+    List<UserDomain> insert(List<UserDomain> users) {
+        if (users.isEmpty()) return List.of();
+
+        final LocalDateTime now = LocalDateTime.now();
+        final List<UserDomain> rows = users.stream()
+                .map(user -> new UserDomain(
+                        user.id() != null ? user.id() : UuidV7Generator.next(),
+                        user.name(),
+                        user.email(),
+                        user.password(),
+                        user.createdAt() != null ? user.createdAt() : now))
+                .toList();
+
+        final Set<UUID> inserted = deadlineTransactions.readWrite("bulk insert", () -> jdbcTemplate.execute(
+                (ConnectionCallback<Set<UUID>>) connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        DataSourceUtils.applyTransactionTimeout(statement, jdbcTemplate.getDataSource());
+                        statement.execute(CREATE_STAGING);
+                    }
+
+                    try {
+                        final long copied = connection.unwrap(PGConnection.class).getCopyAPI()
+                                .copyIn(COPY_STAGING, new StringReader(toCsv(rows)));
+                        log.debug("Copied {} users into the staging table", copied);
+                    } catch (IOException e) {
+                        throw new SQLException("Could not stream users to COPY", e);
+                    }
+
+                    final Set<UUID> ids = new HashSet<>();
+                    try (Statement statement = connection.createStatement()) {
+                        DataSourceUtils.applyTransactionTimeout(statement, jdbcTemplate.getDataSource());
+                        try (ResultSet result = statement.executeQuery(INSERT_FROM_STAGING)) {
+                            while (result.next()) {
+                                ids.add(result.getObject(1, UUID.class));
+                            }
+                        }
+                    }
+                    return ids;
+                }));
+
+        final List<UserDomain> saved = new ArrayList<>(inserted.size());
+        for (UserDomain row : rows) {
+            if (inserted.contains(row.id())) {
+                saved.add(row);
+            }
+        }
+        return saved;
+    }
+
+    private static String toCsv(List<UserDomain> rows) {
+        final StringBuilder csv = new StringBuilder(rows.size() * 128);
+        for (UserDomain row : rows) {
+            csv.append(row.id()).append(',');
+            appendQuoted(csv, row.name());
+            csv.append(',');
+            appendQuoted(csv, row.email());
+            csv.append(',');
+            appendQuoted(csv, row.password());
+            csv.append(',').append(row.createdAt()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static void appendQuoted(StringBuilder csv, String value) {
+        if (value == null) return; // unquoted empty field is NULL in COPY csv
+        csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
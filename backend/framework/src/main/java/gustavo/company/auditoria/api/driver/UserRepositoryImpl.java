@@ -1,29 +1,70 @@
 package gustavo.company.auditoria.api.driver;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.annotation.Transactional;
 
 import gustavo.company.auditoria.api.adapter.mapper.UserMapper;
+import gustavo.company.auditoria.api.config.datasource.ReadYourWritesGuard;
+import gustavo.company.auditoria.api.config.deadline.DeadlineTransactions;
+import gustavo.company.auditoria.api.config.jfr.UserQueryEvent;
 import gustavo.company.auditoria.api.driver.client.UserRepositoryOrm;
 import gustavo.company.auditoria.api.entity.User;
 import gustavo.company.entity.UserDomain;
+import gustavo.company.entity.UserSummary;
 import gustavo.company.exception.BadRequest;
 import gustavo.company.exception.Conflict;
 import gustavo.company.exception.InternalServerError;
 import gustavo.company.exception.InvalidData;
+import gustavo.company.exception.RequestTimeout;
 import gustavo.company.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 @Repository
 @Slf4j
-@RequiredArgsConstructor
 public class UserRepositoryImpl implements UserRepository {
 
     private final UserRepositoryOrm userRepositoryOrm;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final UserBulkInserter userBulkInserter;
+    private final ReadYourWritesGuard readYourWritesGuard;
+    private final DeadlineTransactions deadlineTransactions;
+
+    private final Timer saveTimer;
+    private final Timer saveAllTimer;
+    private final Timer findByEmailTimer;
+    private final Timer findByNameTimer;
+    private final Timer findByIdTimer;
+    private final Timer findPageTimer;
+
+    public UserRepositoryImpl(UserRepositoryOrm userRepositoryOrm, RegisteredEmailFilter registeredEmailFilter,
+            UserBulkInserter userBulkInserter, ReadYourWritesGuard readYourWritesGuard,
+            DeadlineTransactions deadlineTransactions, MeterRegistry meterRegistry) {
+        this.userRepositoryOrm = userRepositoryOrm;
+        this.registeredEmailFilter = registeredEmailFilter;
+        this.userBulkInserter = userBulkInserter;
+        this.readYourWritesGuard = readYourWritesGuard;
+        this.deadlineTransactions = deadlineTransactions;
+        this.saveTimer = meterRegistry.timer("user.repository.duration", "operation", "save");
+        this.saveAllTimer = meterRegistry.timer("user.repository.duration", "operation", "saveAll");
+        this.findByEmailTimer = meterRegistry.timer("user.repository.duration", "operation", "findByEmail");
+        this.findByNameTimer = meterRegistry.timer("user.repository.duration", "operation", "findByName");
+        this.findByIdTimer = meterRegistry.timer("user.repository.duration", "operation", "findById");
+        this.findPageTimer = meterRegistry.timer("user.repository.duration", "operation", "findPage");
+    }
 
     /**
      * Saves a new user in the database.
@@ -32,13 +73,20 @@ public class UserRepositoryImpl implements UserRepository {
      * @return Saved user converted to UserDomain
      * @throws Conflict            if there is a data conflict (e.g., duplication)
      * @throws InvalidData         if the user data is invalid
+     * @throws RequestTimeout      if the request deadline passes before or during the query
      * @throws InternalServerError for unexpected internal errors
      */
     @Override
     public UserDomain save(final UserDomain user) {
         log.debug("Saving user: {}", user);
+        final UserQueryEvent event = new UserQueryEvent();
+        event.begin();
+        final long start = System.nanoTime();
         try {
-            final User userSaved = userRepositoryOrm.save(UserMapper.toEntityComplete(user));
+            final User userSaved = deadlineTransactions.readWrite("save",
+                    () -> userRepositoryOrm.save(UserMapper.toEntityComplete(user)));
+            registeredEmailFilter.add(userSaved.getEmail());
+            readYourWritesGuard.recordWrite(userSaved.getId(), userSaved.getEmail());
             return UserMapper.toDomainBasic(userSaved);
         } catch (DataIntegrityViolationException e) {
             log.error("Conflict while saving user: {}", user, e);
@@ -46,9 +94,51 @@ public class UserRepositoryImpl implements UserRepository {
         } catch (IllegalArgumentException e) {
             log.error("Invalid data to save user: {}", user, e);
             throw new InvalidData("Invalid data provided for saving user", e);
+        } catch (RequestTimeout e) {
+            throw e;
+        } catch (QueryTimeoutException | TransactionTimedOutException e) {
+            throw timedOut("saving user", e);
         } catch (Exception e) {
             log.error("Internal error occurred while saving user: {}", user, e);
             throw new InternalServerError("Internal error occurred while saving user", e);
+        } finally {
+            saveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "save");
+        }
+    }
+
+    /**
+     * Saves many new users at once. Users whose email is already registered,
+     * including duplicates within the list, are skipped.
+     *
+     * @param users Users to be saved
+     * @return Users that were saved, with their IDs
+     * @throws RequestTimeout      if the request deadline passes before or during the query
+     * @throws InternalServerError for unexpected internal errors
+     */
+    @Override
+    public List<UserDomain> saveAllSkippingConflicts(final List<UserDomain> users) {
+        log.debug("Saving {} users in bulk", users.size());
+        final UserQueryEvent event = new UserQueryEvent();
+        event.begin();
+        final long start = System.nanoTime();
+        try {
+            final List<UserDomain> saved = userBulkInserter.insert(users);
+            saved.forEach(user -> {
+                registeredEmailFilter.add(user.email());
+                readYourWritesGuard.recordWrite(user.id(), user.email());
+            });
+            return saved;
+        } catch (RequestTimeout e) {
+            throw e;
+        } catch (QueryTimeoutException | TransactionTimedOutException e) {
+            throw timedOut("saving users", e);
+        } catch (Exception e) {
+            log.error("Internal error occurred while saving {} users in bulk", users.size(), e);
+            throw new InternalServerError("Internal error occurred while saving users", e);
+        } finally {
+            saveAllTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "saveAll");
         }
     }
 
@@ -58,20 +148,32 @@ public class UserRepositoryImpl implements UserRepository {
      * @param email Email of the user to be searched
      * @return Optional containing the user, if found
      * @throws BadRequest          if the email is invalid
+     * @throws RequestTimeout      if the request deadline passes before or during the query
      * @throws InternalServerError for unexpected internal errors
      */
     @Override
     public Optional<UserDomain> findByEmail(final String email) {
         log.debug("Searching for user by email: {}", email);
+        final UserQueryEvent event = new UserQueryEvent();
+        event.begin();
+        final long start = System.nanoTime();
         try {
-            final Optional<User> userOpt = userRepositoryOrm.findByEmail(email);
+            final Optional<User> userOpt = deadlineTransactions.readOnly("findByEmail",
+                    () -> readYourWritesGuard.read(email, () -> userRepositoryOrm.findByEmail(email)));
             return userOpt.map(UserMapper::toDomainBasic);
         } catch (IllegalArgumentException e) {
             log.error("Invalid email provided: {}", email, e);
             throw new BadRequest("Invalid email provided", e);
+        } catch (RequestTimeout e) {
+            throw e;
+        } catch (QueryTimeoutException | TransactionTimedOutException e) {
+            throw timedOut("finding user by email", e);
         } catch (Exception e) {
             log.error("Internal error occurred while searching for user by email: {}", email, e);
             throw new InternalServerError("Internal error occurred while finding user by email", e);
+        } finally {
+            findByEmailTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "findByEmail");
         }
     }
 
@@ -81,20 +183,32 @@ public class UserRepositoryImpl implements UserRepository {
      * @param username Username of the user to be searched
      * @return Optional containing the user, if found
      * @throws BadRequest          if the username is invalid
+     * @throws RequestTimeout      if the request deadline passes before or during the query
      * @throws InternalServerError for unexpected internal errors
      */
     @Override
     public Optional<UserDomain> findByName(final String name) {
         log.debug("Searching for user by name: {}", name);
+        final UserQueryEvent event = new UserQueryEvent();
+        event.begin();
+        final long start = System.nanoTime();
         try {
-            final Optional<User> userOpt = userRepositoryOrm.findByName(name);
+            final Optional<User> userOpt = deadlineTransactions.readOnly("findByName",
+                    () -> userRepositoryOrm.findByName(name));
             return userOpt.map(UserMapper::toDomainBasic);
         } catch (IllegalArgumentException e) {
             log.error("Invalid name provided: {}", name, e);
             throw new BadRequest("Invalid name provided", e);
+        } catch (RequestTimeout e) {
+            throw e;
+        } catch (QueryTimeoutException | TransactionTimedOutException e) {
+            throw timedOut("finding user by name", e);
         } catch (Exception e) {
             log.error("Internal error occurred while searching for user by name: {}", name, e);
             throw new InternalServerError("Internal error occurred while finding user by name", e);
+        } finally {
+            findByNameTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "findByName");
         }
     }
 
@@ -104,21 +218,120 @@ public class UserRepositoryImpl implements UserRepository {
      * @param userId UUID of the user to be searched
      * @return Optional containing the user, if found
      * @throws BadRequest          if the ID is invalid
+     * @throws RequestTimeout      if the request deadline passes before or during the query
      * @throws InternalServerError for unexpected internal errors
      */
     @Override
     public Optional<UserDomain> findById(final UUID userId) {
         log.debug("Searching for user by ID: {}", userId);
+        final UserQueryEvent event = new UserQueryEvent();
+        event.begin();
+        final long start = System.nanoTime();
         try {
-            final Optional<User> userOpt = userRepositoryOrm.findById(userId);
+            final Optional<User> userOpt = deadlineTransactions.readOnly("findById",
+                    () -> readYourWritesGuard.read(userId, () -> userRepositoryOrm.findById(userId)));
             return userOpt.map(UserMapper::toDomainBasic);
         } catch (IllegalArgumentException e) {
             log.error("Invalid ID provided: {}", userId, e);
             throw new BadRequest("Invalid user ID provided", e);
+        } catch (RequestTimeout e) {
+            throw e;
+        } catch (QueryTimeoutException | TransactionTimedOutException e) {
+            throw timedOut("finding user by ID", e);
         } catch (Exception e) {
             log.error("Internal error occurred while searching for user by ID: {}", userId, e);
             throw new InternalServerError("Internal error occurred while finding user by ID", e);
+        } finally {
+            findByIdTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "findById");
+        }
+    }
+
+    /**
+     * Checks the in-memory filter of registered emails, without querying the
+     * database. Users registered through other instances may be missing, so a
+     * false answer only allows skipping checks the database enforces anyway.
+     *
+     * @param email Email to be checked
+     * @return false if this instance has not seen the email registered; true if
+     *         a user probably has it
+     */
+    @Override
+    public boolean mightExistByEmail(final String email) {
+        return registeredEmailFilter.mightContain(email);
+    }
+
+    /**
+     * Checks the in-memory filter of registered emails, without querying the
+     * database, when it can be trusted to hold every registered email.
+     *
+     * @param email Email to be checked
+     * @return true only if no user is registered with this email; false if one
+     *         may be, or if the filter cannot tell
+     */
+    @Override
+    public boolean definitelyAbsentByEmail(final String email) {
+        return registeredEmailFilter.definitelyAbsent(email);
+    }
+
+    /**
+     * Lists users ordered by creation time and ID, starting after the given key.
+     * Only the summary columns are read.
+     *
+     * @param createdAt Creation time of the last user of the previous page, or
+     *                  null for the first page
+     * @param id        ID of the last user of the previous page
+     * @param limit     Maximum number of users
+     * @return Page of user summaries
+     * @throws RequestTimeout      if the request deadline passes before or during the query
+     * @throws InternalServerError for unexpected internal errors
+     */
+    @Override
+    public List<UserSummary> findPageAfter(final LocalDateTime createdAt, final UUID id, final int limit) {
+        log.debug("Listing {} users after ({}, {})", limit, createdAt, id);
+        final UserQueryEvent event = new UserQueryEvent();
+        event.begin();
+        final long start = System.nanoTime();
+        try {
+            return deadlineTransactions.readOnly("findPage", () -> createdAt == null
+                    ? userRepositoryOrm.findFirstSummaries(Limit.of(limit))
+                    : userRepositoryOrm.findSummariesAfter(createdAt, id, Limit.of(limit)));
+        } catch (RequestTimeout e) {
+            throw e;
+        } catch (QueryTimeoutException | TransactionTimedOutException e) {
+            throw timedOut("listing users", e);
+        } catch (Exception e) {
+            log.error("Internal error occurred while listing users", e);
+            throw new InternalServerError("Internal error occurred while listing users", e);
+        } finally {
+            findPageTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "findPage");
         }
     }
 
+    /**
+     * Streams every user summary, ordered by creation time and ID, through a
+     * server-side cursor, so memory use does not grow with the number of users.
+     *
+     * @param consumer Receives each user summary
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachSummary(final Consumer<UserSummary> consumer) {
+        try (Stream<UserSummary> users = userRepositoryOrm.streamAllSummaries()) {
+            users.forEach(consumer);
+        }
+    }
+
+    private static RequestTimeout timedOut(String operation, Exception e) {
+        log.warn("Request deadline reached while {}", operation, e);
+        return new RequestTimeout("Request deadline exceeded while " + operation, e);
+    }
+
+    private static void commit(UserQueryEvent event, String operation) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.commit();
+        }
+    }
 }
@@ -1,28 +1,587 @@
 package gustavo.company.auditoria.api.driver.client;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gustavo.company.auditoria.api.config.deadline.Deadline;
+import gustavo.company.auditoria.api.config.jfr.ChatCallEvent;
+import gustavo.company.auditoria.api.config.tracing.RequestTrace;
+import gustavo.company.auditoria.api.config.tracing.Span;
+import gustavo.company.auditoria.api.config.tracing.Tracer;
+import gustavo.company.auditoria.api.driver.client.chatBot.AnswerCache;
+import gustavo.company.auditoria.api.driver.client.chatBot.InFlightRequests;
+import gustavo.company.auditoria.api.driver.client.chatBot.RagBulkhead;
+import gustavo.company.auditoria.api.driver.client.chatBot.RagEndpoint;
+import gustavo.company.auditoria.api.driver.client.chatBot.RagHedgePolicy;
+import gustavo.company.auditoria.api.driver.client.chatBot.RagLoadBalancer;
 import gustavo.company.client.ChatBotClient;
+import gustavo.company.client.DocumentRetriever;
+import gustavo.company.exception.InternalServerError;
+import gustavo.company.exception.RequestTimeout;
+import gustavo.company.exception.ServiceUnavailable;
+import gustavo.company.utils.TextNormalizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 
 @Service
+@Slf4j
 public class ChatBotClientImpl implements ChatBotClient {
 
-    private final String ragApiUrl;
+    private static final String DATA_FIELD = "data:";
+    private static final String EVENT_FIELD = "event:";
+    private static final String ERROR_EVENT = "error";
+    private static final String TIMEOUT_EVENT = "timeout";
+
+    private final RagLoadBalancer loadBalancer;
+    private final RagHedgePolicy hedgePolicy;
     private final RestTemplate rest;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper;
+    private final AnswerCache answerCache;
+    private final InFlightRequests<Map<String, String>> inFlightRequests = new InFlightRequests<>();
+    private final long waitTimeoutSeconds;
+    private final RagBulkhead bulkhead;
+    private final DocumentRetriever documentRetriever;
+    private final boolean retrievalFallbackEnabled;
+    private final double retrievalFallbackMinScore;
+    private final boolean retrievalFastPathEnabled;
+    private final double retrievalFastPathMinScore;
+    private final int retrievalFastPathPassages;
+    private final String deadlineHeader;
 
-    public ChatBotClientImpl(@Value("${rag.api.url}") String ragApiUrl, RestTemplate rest) {
-        this.ragApiUrl = ragApiUrl;
+    private final AtomicInteger callsInFlight = new AtomicInteger();
+    private final Timer successTimer;
+    private final Timer errorTimer;
+    private final Timer timeoutTimer;
+    private final Timer firstChunkTimer;
+    private final Counter cancelledCounter;
+    private final Counter fastPathCounter;
+
+    public ChatBotClientImpl(RagLoadBalancer loadBalancer, RagHedgePolicy hedgePolicy, RestTemplate rest,
+            @Qualifier("chatBotExecutor") ExecutorService executor, ObjectMapper objectMapper,
+            AnswerCache answerCache,
+            @Value("${rag.coalescing.wait-timeout-seconds:90}") long waitTimeoutSeconds,
+            RagBulkhead bulkhead, DocumentRetriever documentRetriever,
+            @Value("${rag.retrieval.fallback-enabled:false}") boolean retrievalFallbackEnabled,
+            @Value("${rag.retrieval.fallback-min-score:1.0}") double retrievalFallbackMinScore,
+            @Value("${rag.retrieval.fast-path.enabled:true}") boolean retrievalFastPathEnabled,
+            @Value("${rag.retrieval.fast-path.min-score:1.0}") double retrievalFastPathMinScore,
+            @Value("${rag.retrieval.fast-path.passages:3}") int retrievalFastPathPassages,
+            @Value("${deadline.header:X-Request-Budget-Ms}") String deadlineHeader,
+            MeterRegistry meterRegistry) {
+        this.loadBalancer = loadBalancer;
+        this.hedgePolicy = hedgePolicy;
         this.rest = rest;
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+        this.answerCache = answerCache;
+        this.waitTimeoutSeconds = waitTimeoutSeconds;
+        this.bulkhead = bulkhead;
+        this.documentRetriever = documentRetriever;
+        this.retrievalFallbackEnabled = retrievalFallbackEnabled;
+        this.retrievalFallbackMinScore = retrievalFallbackMinScore;
+        this.retrievalFastPathEnabled = retrievalFastPathEnabled;
+        this.retrievalFastPathMinScore = retrievalFastPathMinScore;
+        this.retrievalFastPathPassages = retrievalFastPathPassages;
+        this.deadlineHeader = deadlineHeader;
+
+        this.successTimer = meterRegistry.timer("rag.call.duration", "outcome", "success");
+        this.errorTimer = meterRegistry.timer("rag.call.duration", "outcome", "error");
+        this.timeoutTimer = meterRegistry.timer("rag.call.duration", "outcome", "timeout");
+        this.firstChunkTimer = meterRegistry.timer("rag.stream.first.chunk");
+        this.cancelledCounter = meterRegistry.counter("rag.calls.cancelled");
+        this.fastPathCounter = meterRegistry.counter("rag.retrieval.fast.path");
+        Gauge.builder("rag.calls.in.flight", callsInFlight, AtomicInteger::get).register(meterRegistry);
     }
 
+    /**
+     * Asks the agent a question and waits for the answer.
+     *
+     * @param message question sent to the agent
+     * @return the agent's answer
+     * @see #askAgentAIAsync(String)
+     */
     @Override
     public Map<String, String> askAgentAI(final String message) {
-        Map<String, String> req = Map.of("message", message);
-        Map<String, String> answer = rest.postForObject(ragApiUrl + "/agent/respond", req, Map.class);
+        try {
+            return askAgentAIAsync(message).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Asks the agent a question without blocking the caller.
+     * Cache hits complete immediately without a thread hop. Otherwise, concurrent
+     * callers asking the same (normalized) question share a single call to the
+     * RAG server, which runs on a virtual thread. Each caller waits at most
+     * {@code rag.coalescing.wait-timeout-seconds} for the shared answer.
+     * Passages the BM25 index matches well are sent along with the question, see
+     * {@link #ragRequest(String)}.
+     * While the RAG server is unavailable, the best matching passage of the BM25
+     * index is returned instead when {@code rag.retrieval.fallback-enabled} is set.
+     * A shared call is traced, and its trace ID sent to the RAG server, as part of
+     * the request that started it.
+     * Cancelling the returned future, or timing out, leaves the shared call; once
+     * no caller is left the call is interrupted, which closes the connection to
+     * the RAG server so it stops generating.
+     * The caller waits no longer than its request's deadline, and a shared call
+     * runs under the deadline of the request that started it.
+     * Each call goes to a replica picked by {@link RagLoadBalancer}; with
+     * {@code rag.lb.hedging.enabled}, a late answer is also asked of a second
+     * replica and the first answer wins.
+     *
+     * @param message question sent to the agent
+     * @return future completed with the agent's answer
+     * @throws RequestTimeout (through the future) if the answer takes too long,
+     *                        or at once if the deadline has already passed
+     */
+    @Override
+    public CompletableFuture<Map<String, String>> askAgentAIAsync(final String message) {
+        final String key = TextNormalizer.normalize(message);
+        final Optional<Map<String, String>> cached = answerCache.get(key);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        final Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+            return CompletableFuture.failedFuture(
+                    new RequestTimeout("Request deadline exceeded before asking the agent"));
+        }
+        final long waitTimeoutMs = deadline != null
+                ? deadline.capMillis(TimeUnit.SECONDS.toMillis(waitTimeoutSeconds))
+                : TimeUnit.SECONDS.toMillis(waitTimeoutSeconds);
+
+        final RequestTrace trace = Tracer.current();
+        final CompletableFuture<Map<String, String>> waiter = inFlightRequests
+                .execute(key, () -> supplyInterruptibly(
+                        () -> Deadline.within(deadline, () -> fetchAndCache(key, message, trace))))
+                .orTimeout(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        final CompletableFuture<Map<String, String>> answer = waiter
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        throw new RequestTimeout("Timed out waiting for the agent's answer");
+                    }
+                    if (cause instanceof ServiceUnavailable unavailable && retrievalFallbackEnabled) {
+                        return retrievalFallback(message).orElseThrow(() -> unavailable);
+                    }
+                    throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+                });
+        // cancellation does not flow back through dependent futures on its own
+        answer.whenComplete((ignored, error) -> {
+            if (answer.isCancelled()) waiter.cancel(true);
+        });
         return answer;
     }
+
+    /**
+     * Fallback used while the RAG server is unavailable: answers with the best
+     * passage from the in-process BM25 index, if it matches well enough.
+     */
+    private Optional<Map<String, String>> retrievalFallback(final String message) {
+        return documentRetriever.search(message, 1).stream()
+                .filter(hit -> ((Number) hit.get("score")).doubleValue() >= retrievalFallbackMinScore)
+                .findFirst()
+                .map(hit -> {
+                    log.info("RAG server unavailable, answering from BM25 passage of {}", hit.get("source"));
+                    return Map.of("answer", (String) hit.get("text"), "source", (String) hit.get("source"));
+                });
+    }
+
+    /**
+     * Body of a call to the RAG server. Passages of the BM25 index scoring at
+     * least {@code rag.retrieval.fast-path.min-score} go along as
+     * {@code context}; the RAG server then answers over them and skips its own
+     * embedding and vector search. Questions the index does not match well
+     * enough are left to the vector search.
+     */
+    private Map<String, Object> ragRequest(final String message) {
+        if (!retrievalFastPathEnabled) return Map.of("message", message);
+
+        final List<Map<String, Object>> passages = documentRetriever.search(message, retrievalFastPathPassages)
+                .stream()
+                .filter(hit -> ((Number) hit.get("score")).doubleValue() >= retrievalFastPathMinScore)
+                .toList();
+        if (passages.isEmpty()) return Map.of("message", message);
+
+        fastPathCounter.increment();
+        return Map.of("message", message, "context", passages);
+    }
+
+    /**
+     * Relays the agent's answer chunk by chunk as the RAG server emits it over
+     * Server-Sent Events. The response body is read line by line, so the full
+     * answer is never buffered. A cached answer is relayed as a single chunk.
+     *
+     * @param message question sent to the agent
+     * @param onChunk callback invoked for every chunk, in order
+     * @return future completed when the RAG server closes the stream; cancelling
+     *         it closes the connection to the RAG server
+     * @throws InternalServerError if the RAG server reports an error event
+     * @throws RequestTimeout      if the request's deadline passes before the
+     *                             call starts or while waiting for the server
+     */
+    @Override
+    public CompletableFuture<Void> streamAgentAI(final String message, final Consumer<String> onChunk) {
+        final Optional<String> cached = answerCache.get(TextNormalizer.normalize(message))
+                .map(answer -> answer.get("answer"));
+        if (cached.isPresent()) {
+            return CompletableFuture.runAsync(() -> onChunk.accept(cached.get()), executor);
+        }
+        final Deadline deadline = Deadline.current();
+        final RequestTrace trace = Tracer.current();
+        return supplyInterruptibly(() -> Deadline.within(deadline, () -> {
+            stream(message, onChunk, trace);
+            return null;
+        }));
+    }
+
+    /**
+     * Runs a task on the executor and returns a future whose cancellation
+     * interrupts the task's thread. A virtual thread blocked reading a socket
+     * is woken up by the interrupt, with the socket closed.
+     */
+    private <T> CompletableFuture<T> supplyInterruptibly(final Supplier<T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Future<?> running = executor.submit(() -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((ignored, error) -> {
+            if (result.isCancelled()) running.cancel(true);
+        });
+        return result;
+    }
+
+    private Map<String, String> fetchAndCache(final String key, final String message, final RequestTrace trace) {
+        HttpHeaders headers = new HttpHeaders();
+        addTraceId(headers, trace);
+        addBudget(headers);
+        HttpEntity<Map<String, Object>> req = new HttpEntity<>(ragRequest(message), headers);
+        ChatCallEvent callEvent = new ChatCallEvent();
+        callEvent.begin();
+        Map<String, String> answer = null;
+        try {
+            answer = askRag(req, trace);
+            answerCache.put(key, answer);
+            return answer;
+        } finally {
+            if (callEvent.shouldCommit()) {
+                String text = answer != null ? answer.get("answer") : null;
+                commit(callEvent, "askAgentAI", answer != null, message,
+                        text != null ? text.getBytes(StandardCharsets.UTF_8).length : 0);
+            }
+        }
+    }
+
+    /**
+     * Asks one replica and, when hedging is on and the answer is late, a
+     * second one; the first answer wins and the other call is cancelled.
+     */
+    private Map<String, String> askRag(final HttpEntity<Map<String, Object>> req, final RequestTrace trace) {
+        final RagEndpoint first = loadBalancer.choose(null);
+        final long hedgeDelayMs = hedgePolicy.delayMillis();
+        if (hedgeDelayMs < 0 || loadBalancer.size() < 2) {
+            return askEndpoint(first, req, trace);
+        }
+
+        final Deadline deadline = Deadline.current();
+        final CompletableFuture<Map<String, String>> primary = supplyInterruptibly(
+                () -> Deadline.within(deadline, () -> askEndpoint(first, req, trace)));
+        CompletableFuture<Map<String, String>> hedged = null;
+        try {
+            try {
+                return primary.get(hedgeDelayMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // late: hedge below
+            }
+            final RagEndpoint second = loadBalancer.choose(first);
+            if (second == null) {
+                return primary.get();
+            }
+
+            hedgePolicy.onHedged();
+            hedged = supplyInterruptibly(() -> Deadline.within(deadline, () -> askEndpoint(second, req, trace)));
+            final CompletableFuture<Map<String, String>> hedge = hedged;
+            final CompletableFuture<Map<String, String>> winner = new CompletableFuture<>();
+            final AtomicInteger failed = new AtomicInteger();
+            primary.whenComplete((answer, error) -> {
+                if (error == null) winner.complete(answer);
+                else if (failed.incrementAndGet() == 2) winner.completeExceptionally(error);
+            });
+            hedge.whenComplete((answer, error) -> {
+                if (error == null && winner.complete(answer)) hedgePolicy.onHedgeWon();
+                else if (error != null && failed.incrementAndGet() == 2) winner.completeExceptionally(error);
+            });
+            return winner.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("RAG call cancelled");
+        } finally {
+            primary.cancel(true);
+            if (hedged != null) hedged.cancel(true);
+        }
+    }
+
+    private Map<String, String> askEndpoint(final RagEndpoint endpoint, final HttpEntity<Map<String, Object>> req,
+            final RequestTrace trace) {
+        final long start = System.nanoTime();
+        final Map<String, String> answer = callRag(
+                () -> rest.postForObject(endpoint.url() + "/agent/respond", req, Map.class),
+                null, trace, "rag.askAgentAI", endpoint);
+        hedgePolicy.record(System.nanoTime() - start);
+        return answer;
+    }
+
+    private void stream(final String message, final Consumer<String> onChunk, final RequestTrace trace) {
+        Map<String, Object> req = ragRequest(message);
+        AtomicLong firstChunkAt = new AtomicLong();
+        ChatCallEvent callEvent = new ChatCallEvent();
+        callEvent.begin();
+        // only sized while a recording wants the event
+        AtomicLong responseSize = callEvent.isEnabled() ? new AtomicLong() : null;
+        boolean succeeded = false;
+
+        try {
+            streamFromRag(req, onChunk, trace, firstChunkAt, responseSize);
+            succeeded = true;
+        } finally {
+            if (callEvent.shouldCommit()) {
+                commit(callEvent, "streamAgentAI", succeeded, message, responseSize != null ? responseSize.get() : 0);
+            }
+        }
+    }
+
+    private void streamFromRag(final Map<String, Object> req, final Consumer<String> onChunk,
+            final RequestTrace trace, final AtomicLong firstChunkAt, final AtomicLong responseSize) {
+        final RagEndpoint endpoint = loadBalancer.choose(null);
+        callRag(() -> rest.execute(endpoint.url() + "/agent/respond/stream", HttpMethod.POST,
+                request -> {
+                    addTraceId(request.getHeaders(), trace);
+                    addBudget(request.getHeaders());
+                    request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                    objectMapper.writeValue(request.getBody(), req);
+                },
+                response -> {
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        String event = null;
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (line.isEmpty()) {
+                                event = null;
+                            } else if (line.startsWith(EVENT_FIELD)) {
+                                event = line.substring(EVENT_FIELD.length()).trim();
+                            } else if (line.startsWith(DATA_FIELD)) {
+                                String data = objectMapper.readValue(line.substring(DATA_FIELD.length()).trim(),
+                                        String.class);
+                                if (ERROR_EVENT.equals(event)) {
+                                    throw new InternalServerError("Agent failed while streaming: " + data);
+                                }
+                                if (TIMEOUT_EVENT.equals(event)) {
+                                    throw new RequestTimeout("Agent gave up on the forwarded budget: " + data);
+                                }
+                                firstChunkAt.compareAndSet(0, System.nanoTime());
+                                if (responseSize != null) {
+                                    responseSize.addAndGet(data.getBytes(StandardCharsets.UTF_8).length);
+                                }
+                                onChunk.accept(data);
+                            }
+                        }
+                    }
+                    return null;
+                }), firstChunkAt, trace, "rag.streamAgentAI", endpoint);
+    }
+
+    private static void commit(ChatCallEvent event, String operation, boolean succeeded, String message,
+            long responseSize) {
+        event.operation = operation;
+        event.success = succeeded;
+        event.requestSize = message.getBytes(StandardCharsets.UTF_8).length;
+        event.responseSize = responseSize;
+        event.commit();
+    }
+
+    private static void addTraceId(HttpHeaders headers, RequestTrace trace) {
+        if (trace != null) {
+            headers.set(Tracer.TRACE_ID_HEADER, trace.traceId());
+        }
+    }
+
+    /**
+     * Forwards the time the request has left, so the RAG server can give up
+     * once nobody will read its answer.
+     */
+    private void addBudget(HttpHeaders headers) {
+        final Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            headers.set(deadlineHeader, String.valueOf(Math.max(0, deadline.remainingMillis())));
+        }
+    }
+
+    /**
+     * Runs a call to a RAG replica behind its circuit breaker and the bulkhead,
+     * translating I/O failures into domain exceptions. The outcome feeds the
+     * replica's breaker and health and the bulkhead's adaptive limit. Any timeout (pool lease,
+     * connect or response) becomes a {@link RequestTimeout}; other failures of
+     * the RAG server an {@link InternalServerError}. A call whose request
+     * deadline has already passed is not started, and a timeout caused by the
+     * deadline does not count against the RAG server.
+     *
+     * @param call          the outbound call
+     * @param firstChunkAt  for streamed calls, set to the time the first chunk
+     *                      arrived, which is then used as the call latency
+     * @param trace         trace of the request that made the call, or null
+     * @param spanName      name of the span recorded for the call
+     * @param endpoint      replica the call goes to, told how the call went
+     * @throws ServiceUnavailable if the replica's breaker is open or the
+     *                            bulkhead is full
+     * @throws RequestTimeout     if the request's deadline passed
+     */
+    private <T> T callRag(Supplier<T> call, AtomicLong firstChunkAt, RequestTrace trace, String spanName,
+            RagEndpoint endpoint) {
+        try (Span span = Tracer.span(trace, spanName)) {
+            return callRag(call, firstChunkAt, endpoint);
+        }
+    }
+
+    private <T> T callRag(Supplier<T> call, AtomicLong firstChunkAt, RagEndpoint endpoint) {
+        final Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            deadline.check("calling the agent");
+        }
+        loadBalancer.acquirePermission(endpoint);
+        try {
+            bulkhead.acquire();
+        } catch (ServiceUnavailable e) {
+            loadBalancer.releasePermission(endpoint);
+            throw e;
+        }
+
+        callsInFlight.incrementAndGet();
+        loadBalancer.onStart(endpoint);
+        final long start = System.nanoTime();
+        try {
+            final T result = call.get();
+            final long latency = latencySince(start, firstChunkAt);
+            loadBalancer.onSuccess(endpoint, latency);
+            bulkhead.onSuccess(latency);
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (firstChunkAt != null && firstChunkAt.get() != 0) {
+                firstChunkTimer.record(firstChunkAt.get() - start, TimeUnit.NANOSECONDS);
+            }
+            return result;
+        } catch (ResourceAccessException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // cancelled by the caller, not the RAG server's fault
+                loadBalancer.onRelease(endpoint);
+                cancelledCounter.increment();
+                log.info("RAG call cancelled, nobody is waiting for the answer");
+                throw new CancellationException("RAG call cancelled");
+            }
+            if (e.getCause() instanceof InterruptedIOException && deadline != null && deadline.isExpired()) {
+                throw deadlineExceeded(start, e, endpoint);
+            }
+            onRagFailure(start, firstChunkAt, endpoint);
+            if (e.getCause() instanceof InterruptedIOException) {
+                timeoutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.warn("RAG server did not answer in time", e);
+                throw new RequestTimeout("The agent did not answer in time", e);
+            }
+            errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.error("RAG server is unreachable", e);
+            throw new InternalServerError("The agent is unavailable", e);
+        } catch (HttpServerErrorException e) {
+            if (e.getStatusCode().isSameCodeAs(HttpStatus.GATEWAY_TIMEOUT)
+                    && deadline != null && deadline.isExpired()) {
+                // the RAG server gave up on the budget it was forwarded
+                throw deadlineExceeded(start, e, endpoint);
+            }
+            onRagFailure(start, firstChunkAt, endpoint);
+            errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.error("RAG server failed with status {}", e.getStatusCode(), e);
+            throw new InternalServerError("The agent failed to answer", e);
+        } catch (RequestTimeout e) {
+            // the RAG server gave up on the budget it was forwarded, mid-stream
+            throw deadlineExceeded(start, e, endpoint);
+        } catch (InternalServerError e) {
+            onRagFailure(start, firstChunkAt, endpoint);
+            errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } catch (RuntimeException e) {
+            // not the RAG server's fault (e.g. the client went away)
+            loadBalancer.onRelease(endpoint);
+            throw e;
+        } finally {
+            callsInFlight.decrementAndGet();
+            bulkhead.release();
+        }
+    }
+
+    private void onRagFailure(long start, AtomicLong firstChunkAt, RagEndpoint endpoint) {
+        final long latency = latencySince(start, firstChunkAt);
+        loadBalancer.onFailure(endpoint, latency);
+        bulkhead.onDropped();
+    }
+
+    /**
+     * The caller's budget ran out; the RAG server may be healthy, so the call
+     * does not count against the breaker.
+     */
+    private RequestTimeout deadlineExceeded(long start, Exception e, RagEndpoint endpoint) {
+        loadBalancer.onRelease(endpoint);
+        timeoutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.warn("Request deadline passed while waiting for the RAG server");
+        return new RequestTimeout("Request deadline exceeded while waiting for the agent", e);
+    }
+
+    private static long latencySince(long start, AtomicLong firstChunkAt) {
+        final long end = firstChunkAt != null && firstChunkAt.get() != 0 ? firstChunkAt.get() : System.nanoTime();
+        return end - start;
+    }
 }
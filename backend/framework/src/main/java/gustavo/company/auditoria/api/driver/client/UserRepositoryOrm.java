@@ -1,15 +1,52 @@
 package gustavo.company.auditoria.api.driver.client;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import gustavo.company.auditoria.api.entity.User;
+import gustavo.company.entity.UserSummary;
+import jakarta.persistence.QueryHint;
 
 
 public interface UserRepositoryOrm extends  JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
     Optional<User> findByName(String name);
 
+    // must be consumed inside a transaction so the driver can fetch with a cursor
+    @Query("select u.email from User u")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<String> streamAllEmails();
+
+    @Query("""
+            select new gustavo.company.entity.UserSummary(u.id, u.name, u.email, u.createdAt)
+            from User u
+            order by u.createdAt, u.id""")
+    List<UserSummary> findFirstSummaries(Limit limit);
+
+    // keyset page: rows strictly after (createdAt, id), served by idx_users_created_at_id
+    @Query("""
+            select new gustavo.company.entity.UserSummary(u.id, u.name, u.email, u.createdAt)
+            from User u
+            where u.createdAt >= :createdAt and (u.createdAt > :createdAt or u.id > :id)
+            order by u.createdAt, u.id""")
+    List<UserSummary> findSummariesAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+            Limit limit);
+
+    // must be consumed inside a transaction so the driver can fetch with a cursor
+    @Query("""
+            select new gustavo.company.entity.UserSummary(u.id, u.name, u.email, u.createdAt)
+            from User u
+            order by u.createdAt, u.id""")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<UserSummary> streamAllSummaries();
+
 }
@@ -0,0 +1,79 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Size- and TTL-bounded cache of agent answers, keyed by the normalized
+ * question.
+ */
+@Component
+@Slf4j
+public class AnswerCache {
+
+    private final Cache<String, Map<String, String>> cache;
+
+    public AnswerCache(
+            @Value("${rag.cache.max-size:1000}") long maxSize,
+            @Value("${rag.cache.ttl-minutes:60}") long ttlMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        log.info("Answer cache initialized with max size {} and TTL of {} minutes", maxSize, ttlMinutes);
+    }
+
+    /**
+     * Looks up a cached answer.
+     *
+     * @param key normalized question
+     * @return cached answer, if present and not expired
+     */
+    public Optional<Map<String, String>> get(String key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    /**
+     * Stores an answer. Empty answers are not cached.
+     *
+     * @param key    normalized question
+     * @param answer answer returned by the agent
+     */
+    public void put(String key, Map<String, String> answer) {
+        if (answer == null || answer.isEmpty()) return;
+        cache.put(key, Map.copyOf(answer));
+    }
+
+    /**
+     * Removes every cached answer.
+     */
+    public void purge() {
+        long size = cache.estimatedSize();
+        cache.invalidateAll();
+        log.info("Answer cache purged, {} entries removed", size);
+    }
+
+    /**
+     * @return hit, miss and eviction counters plus the current size
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        return Map.of(
+                "size", cache.estimatedSize(),
+                "hits", stats.hitCount(),
+                "misses", stats.missCount(),
+                "evictions", stats.evictionCount(),
+                "hitRate", stats.hitRate());
+    }
+}
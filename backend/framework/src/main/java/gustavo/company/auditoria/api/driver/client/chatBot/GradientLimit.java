@@ -0,0 +1,80 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+/**
+ * Concurrency limit that follows the latency of the calls it admits.
+ * <p>
+ * Two moving averages of the round-trip time are kept: a long one, standing
+ * for the latency of an unloaded backend, and a short one for the current
+ * latency. While the short average stays within {@code rttTolerance} times
+ * the long one, the limit grows by about its square root per sample. Once
+ * calls start queueing inside the backend and latency inflates, the ratio
+ * shrinks the limit towards the point where throughput stops improving. A
+ * failed call cuts the limit by {@code backoffRatio}.
+ * <p>
+ * Not thread-safe; {@link RagBulkhead} calls it under its lock.
+ */
+final class GradientLimit {
+
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+
+    private volatile double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing,
+            double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+        this.estimatedLimit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * @return calls currently allowed in flight
+     */
+    int current() {
+        return (int) estimatedLimit;
+    }
+
+    /**
+     * @param rttNanos round-trip time of a call that succeeded
+     * @param inFlight calls in flight when it completed
+     */
+    void onSample(long rttNanos, int inFlight) {
+        if (shortRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+        } else {
+            shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+            longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+        }
+        // latency dropped for good (e.g. a faster model): let the baseline follow
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        // too few calls in flight to tell whether the limit is right
+        if (inFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        final double gradient = Math.clamp(rttTolerance * longRtt / shortRtt, 0.5, 1.0);
+        final double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.clamp(estimatedLimit * (1 - smoothing) + newLimit * smoothing, minLimit, maxLimit);
+    }
+
+    /**
+     * Backs off after a call that failed or timed out.
+     */
+    void onDropped() {
+        estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+    }
+}
@@ -0,0 +1,116 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls that share a key: while a call for a key is in
+ * flight, further callers attach to it instead of starting their own, and all
+ * of them observe the same result or the same failure.
+ * <p>
+ * Callers that stop waiting (by cancelling or timing out their future) leave
+ * the call; when the last one leaves, the call itself is cancelled, so no work
+ * continues for an answer nobody will read.
+ *
+ * @param <T> result type
+ */
+public class InFlightRequests<T> {
+
+    private final ConcurrentHashMap<String, Call<T>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Joins the call in flight for {@code key}, or starts one with {@code call}.
+     * Every caller receives its own dependent future, so a caller may time out or
+     * cancel without affecting the others.
+     *
+     * @param key  key identifying identical calls
+     * @param call starts the call when none is in flight; cancelling the returned
+     *             future must stop the call
+     * @return future completed with the shared outcome
+     */
+    public CompletableFuture<T> execute(String key, Supplier<CompletableFuture<T>> call) {
+        while (true) {
+            final Call<T> created = new Call<>();
+            final Call<T> existing = inFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                final CompletableFuture<T> waiter = created.join();
+                start(key, created, call);
+                return waiter;
+            }
+            final CompletableFuture<T> joined = existing.join();
+            if (joined != null) {
+                return joined;
+            }
+            // every caller of that call already left and it is being cancelled
+            inFlight.remove(key, existing);
+        }
+    }
+
+    /**
+     * @return number of distinct calls currently in flight
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    private void start(String key, Call<T> created, Supplier<CompletableFuture<T>> call) {
+        try {
+            final CompletableFuture<T> started = call.get();
+            created.started = started;
+            started.whenComplete((result, error) -> {
+                inFlight.remove(key, created);
+                if (error != null) {
+                    created.result.completeExceptionally(unwrap(error));
+                } else {
+                    created.result.complete(result);
+                }
+            });
+            if (created.waiters.get() == 0) {
+                // the only caller left while the call was being started
+                started.cancel(true);
+            }
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            created.result.completeExceptionally(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * A shared call and the number of callers still waiting for it.
+     */
+    private static final class Call<T> {
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+        private volatile CompletableFuture<T> started;
+
+        /**
+         * @return a future for one more caller, or null if every caller already
+         *         left and the call is being cancelled
+         */
+        CompletableFuture<T> join() {
+            int current;
+            do {
+                current = waiters.get();
+                if (current == 0 && started != null) return null;
+            } while (!waiters.compareAndSet(current, current + 1));
+
+            final CompletableFuture<T> waiter = result.copy();
+            waiter.whenComplete((value, error) -> {
+                // completed before the call: the caller cancelled or timed out
+                if (!result.isDone() && waiters.decrementAndGet() == 0) {
+                    final CompletableFuture<T> call = started;
+                    if (call != null) call.cancel(true);
+                }
+            });
+            return waiter;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import gustavo.company.auditoria.api.config.deadline.Deadline;
+import gustavo.company.exception.ServiceUnavailable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caps the number of concurrent calls to the RAG server, so a saturated
+ * backend cannot pile up an unbounded backlog of waiting requests.
+ * <p>
+ * With {@code rag.bulkhead.adaptive.enabled}, the cap is a
+ * {@link GradientLimit} that starts at {@code max-concurrent} and moves
+ * between {@code adaptive.min-limit} and {@code adaptive.max-limit} with the
+ * latency and failures of the calls, so it settles where the RAG server
+ * answers the most calls without queueing them internally. Otherwise the cap
+ * stays at {@code max-concurrent}.
+ * <p>
+ * Calls beyond the cap wait in line, at most {@code max-queued} of them and
+ * for at most {@code max-wait-ms}, then are shed.
+ */
+@Component
+@Slf4j
+public class RagBulkhead {
+
+    private final int maxConcurrent;
+    private final GradientLimit adaptiveLimit;
+    private final long maxWaitMs;
+    private final int maxQueued;
+    private final Counter rejectedCounter;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition slotFreed = lock.newCondition();
+    private volatile int inFlight;
+    private volatile int queued;
+
+    public RagBulkhead(
+            @Value("${rag.bulkhead.max-concurrent:20}") int maxConcurrent,
+            @Value("${rag.bulkhead.max-wait-ms:500}") long maxWaitMs,
+            @Value("${rag.bulkhead.max-queued:50}") int maxQueued,
+            @Value("${rag.bulkhead.adaptive.enabled:true}") boolean adaptive,
+            @Value("${rag.bulkhead.adaptive.min-limit:2}") int minLimit,
+            @Value("${rag.bulkhead.adaptive.max-limit:50}") int maxLimit,
+            @Value("${rag.bulkhead.adaptive.rtt-tolerance:1.5}") double rttTolerance,
+            @Value("${rag.bulkhead.adaptive.smoothing:0.2}") double smoothing,
+            @Value("${rag.bulkhead.adaptive.backoff-ratio:0.9}") double backoffRatio,
+            MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.adaptiveLimit = adaptive
+                ? new GradientLimit(maxConcurrent, minLimit, maxLimit, rttTolerance, smoothing, backoffRatio)
+                : null;
+        this.maxWaitMs = maxWaitMs;
+        this.maxQueued = maxQueued;
+        this.rejectedCounter = meterRegistry.counter("rag.bulkhead.rejected");
+        Gauge.builder("rag.bulkhead.limit", this, RagBulkhead::limit).register(meterRegistry);
+        Gauge.builder("rag.bulkhead.available", this, bulkhead -> Math.max(0, bulkhead.limit() - bulkhead.inFlight))
+                .register(meterRegistry);
+        Gauge.builder("rag.bulkhead.queued", this, bulkhead -> bulkhead.queued).register(meterRegistry);
+        Gauge.builder("rag.bulkhead.max", () -> adaptive ? maxLimit : maxConcurrent).register(meterRegistry);
+        log.info("RAG bulkhead initialized with {} concurrent calls ({})", maxConcurrent,
+                adaptive ? "adaptive, " + minLimit + " to " + maxLimit : "fixed");
+    }
+
+    /**
+     * @return calls currently allowed in flight
+     */
+    public int limit() {
+        return adaptiveLimit != null ? adaptiveLimit.current() : maxConcurrent;
+    }
+
+    /**
+     * Takes a slot, waiting in line up to {@code max-wait-ms}, and never past
+     * the request's deadline, when none is free.
+     *
+     * @throws ServiceUnavailable if the line is full or no slot frees up in time
+     */
+    public void acquire() {
+        final Deadline deadline = Deadline.current();
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(deadline != null ? deadline.capMillis(maxWaitMs) : maxWaitMs);
+
+        lock.lock();
+        try {
+            // arrivals do not overtake calls already in line
+            if (queued == 0 && inFlight < limit()) {
+                inFlight++;
+                return;
+            }
+            if (queued >= maxQueued || waitNanos <= 0) {
+                throw rejected();
+            }
+
+            queued++;
+            try {
+                while (inFlight >= limit()) {
+                    if (waitNanos <= 0) {
+                        throw rejected();
+                    }
+                    waitNanos = slotFreed.awaitNanos(waitNanos);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw rejected();
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotFreed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Feeds the round-trip time of a successful call to the adaptive limit.
+     *
+     * @param rttNanos time until the RAG server answered, or sent its first
+     *                 chunk for streamed calls
+     */
+    public void onSuccess(long rttNanos) {
+        if (adaptiveLimit == null) return;
+        lock.lock();
+        try {
+            final int before = adaptiveLimit.current();
+            adaptiveLimit.onSample(rttNanos, inFlight);
+            if (adaptiveLimit.current() > before) {
+                slotFreed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Backs the adaptive limit off after a call the RAG server failed or did
+     * not answer in time.
+     */
+    public void onDropped() {
+        if (adaptiveLimit == null) return;
+        lock.lock();
+        try {
+            adaptiveLimit.onDropped();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ServiceUnavailable rejected() {
+        rejectedCounter.increment();
+        return new ServiceUnavailable("Too many questions in progress, try again shortly", 1);
+    }
+}
@@ -0,0 +1,212 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import java.time.Duration;
+
+import gustavo.company.exception.ServiceUnavailable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker guarding one replica of the RAG server. While it is open,
+ * {@link RagLoadBalancer} routes calls to the other replicas, so calls are
+ * only rejected once no replica is left.
+ * <p>
+ * While CLOSED, the outcome of the last {@code window-size} calls is recorded.
+ * Once at least {@code minimum-calls} were recorded and either the failure
+ * rate or the slow-call rate reaches its threshold, the breaker OPENs and
+ * rejects every call for {@code open-duration-seconds}. It then lets
+ * {@code half-open-calls} trial calls through (HALF_OPEN): if all of them
+ * succeed quickly it CLOSEs again, otherwise it re-OPENs.
+ */
+@Slf4j
+public class RagCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Settings shared by the breakers of all replicas.
+     */
+    record Settings(int windowSize, int minimumCalls, double failureRateThreshold, double slowCallRateThreshold,
+            long slowCallDurationMs, long openDurationSeconds, int halfOpenCalls) {
+    }
+
+    private final String endpoint;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedCounter;
+
+    // outcome ring buffer of the CLOSED state
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openUntilNanos;
+    private int halfOpenInFlight;
+    private int halfOpenSucceeded;
+
+    RagCircuitBreaker(String endpoint, Settings settings, MeterRegistry meterRegistry) {
+        this.endpoint = endpoint;
+        this.windowSize = settings.windowSize();
+        this.minimumCalls = Math.min(settings.minimumCalls(), windowSize);
+        this.failureRateThreshold = settings.failureRateThreshold();
+        this.slowCallRateThreshold = settings.slowCallRateThreshold();
+        this.slowCallNanos = Duration.ofMillis(settings.slowCallDurationMs()).toNanos();
+        this.openNanos = Duration.ofSeconds(settings.openDurationSeconds()).toNanos();
+        this.halfOpenCalls = settings.halfOpenCalls();
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+
+        this.meterRegistry = meterRegistry;
+        this.rejectedCounter = meterRegistry.counter("rag.circuit.breaker.rejected", "endpoint", endpoint);
+        Gauge.builder("rag.circuit.breaker.state", this, breaker -> breaker.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return whether {@link #acquirePermission()} would let a call through
+     */
+    public synchronized boolean permitsCalls(long nowNanos) {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> nowNanos - openUntilNanos >= 0;
+            case HALF_OPEN -> halfOpenInFlight + halfOpenSucceeded < halfOpenCalls;
+        };
+    }
+
+    /**
+     * Asks for permission to call the RAG server. Every granted permission must
+     * be followed by {@link #onSuccess(long)}, {@link #onError(long)} or
+     * {@link #releasePermission()}.
+     *
+     * @throws ServiceUnavailable if the breaker is open, with the time left
+     *                            until it half-opens as retry delay
+     */
+    public synchronized void acquirePermission() {
+        final long now = System.nanoTime();
+        if (state == State.OPEN && now - openUntilNanos >= 0) {
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (state == State.OPEN) {
+            rejectedCounter.increment();
+            long retryAfterSeconds = Duration.ofNanos(openUntilNanos - now).toSeconds() + 1;
+            throw new ServiceUnavailable("The agent is temporarily unavailable", retryAfterSeconds);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight + halfOpenSucceeded >= halfOpenCalls) {
+                rejectedCounter.increment();
+                throw new ServiceUnavailable("The agent is recovering, try again shortly", 1);
+            }
+            halfOpenInFlight++;
+        }
+    }
+
+    /**
+     * Gives back a permission that was not used to call the RAG server.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenInFlight > 0) {
+            halfOpenInFlight--;
+        }
+    }
+
+    /**
+     * Records a call that completed.
+     *
+     * @param durationNanos call duration
+     */
+    public synchronized void onSuccess(long durationNanos) {
+        record(false, durationNanos >= slowCallNanos);
+    }
+
+    /**
+     * Records a call that failed because of the RAG server.
+     *
+     * @param durationNanos call duration
+     */
+    public synchronized void onError(long durationNanos) {
+        record(true, durationNanos >= slowCallNanos);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean callFailed, boolean callSlow) {
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            if (callFailed || callSlow) {
+                transitionTo(State.OPEN);
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // late result of a call started before the breaker opened
+            return;
+        }
+
+        if (recorded == windowSize) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failed[next] = callFailed;
+        slow[next] = callSlow;
+        failures += callFailed ? 1 : 0;
+        slowCalls += callSlow ? 1 : 0;
+        next = (next + 1) % windowSize;
+
+        if (recorded < minimumCalls) return;
+
+        final double failureRate = 100.0 * failures / recorded;
+        final double slowCallRate = 100.0 * slowCalls / recorded;
+        if (failureRate >= failureRateThreshold || slowCallRate >= slowCallRateThreshold) {
+            log.warn("RAG circuit breaker of {} tripped: failure rate {}%, slow call rate {}% over {} calls",
+                    endpoint, failureRate, slowCallRate, recorded);
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State target) {
+        final State previous = state;
+        state = target;
+        halfOpenInFlight = 0;
+        halfOpenSucceeded = 0;
+        if (target == State.OPEN) {
+            openUntilNanos = System.nanoTime() + openNanos;
+        }
+        if (target == State.CLOSED) {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+
+        log.info("RAG circuit breaker of {} transitioned from {} to {}", endpoint, previous, target);
+        meterRegistry.counter("rag.circuit.breaker.transitions", "endpoint", endpoint,
+                "from", previous.name(), "to", target.name())
+                .increment();
+    }
+}
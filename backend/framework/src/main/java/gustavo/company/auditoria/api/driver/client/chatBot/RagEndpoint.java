@@ -0,0 +1,135 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * One replica of the RAG server, with the state the load balancer picks
+ * replicas by: calls in progress, recent failures, health and its circuit
+ * breaker.
+ */
+public class RagEndpoint {
+
+    private final String url;
+    private final RagCircuitBreaker circuitBreaker;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final Timer successTimer;
+    private final Timer errorTimer;
+
+    private volatile long ejectedUntilNanos;
+    private volatile int ejections;
+    private volatile boolean probeHealthy = true;
+
+    RagEndpoint(String url, RagCircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        this.url = url;
+        this.circuitBreaker = circuitBreaker;
+        this.ejectedUntilNanos = System.nanoTime();
+        this.successTimer = meterRegistry.timer("rag.endpoint.duration", "endpoint", url, "outcome", "success");
+        this.errorTimer = meterRegistry.timer("rag.endpoint.duration", "endpoint", url, "outcome", "error");
+        Gauge.builder("rag.endpoint.outstanding", outstanding, AtomicInteger::get)
+                .tag("endpoint", url)
+                .register(meterRegistry);
+        Gauge.builder("rag.endpoint.available", this, endpoint -> endpoint.isAvailable(System.nanoTime()) ? 1 : 0)
+                .tag("endpoint", url)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return base URL of the replica, without a trailing slash
+     */
+    public String url() {
+        return url;
+    }
+
+    RagCircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    int outstanding() {
+        return outstanding.get();
+    }
+
+    boolean isAvailable(long nowNanos) {
+        return probeHealthy && nowNanos - ejectedUntilNanos >= 0 && circuitBreaker.permitsCalls(nowNanos);
+    }
+
+    void onStart() {
+        outstanding.incrementAndGet();
+    }
+
+    void onSuccess(long latencyNanos) {
+        outstanding.decrementAndGet();
+        consecutiveFailures.set(0);
+        ejections = 0;
+        circuitBreaker.onSuccess(latencyNanos);
+        successTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return number of failures in a row, including this one
+     */
+    int onFailure(long latencyNanos) {
+        outstanding.decrementAndGet();
+        circuitBreaker.onError(latencyNanos);
+        errorTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    /**
+     * A call that ended without telling anything about the replica, e.g.
+     * cancelled by the caller.
+     */
+    void onRelease() {
+        outstanding.decrementAndGet();
+        circuitBreaker.releasePermission();
+    }
+
+    /**
+     * Takes the replica out of rotation; every ejection in a row doubles the
+     * time out, up to {@code maxNanos}.
+     *
+     * @return how long the replica is out of rotation
+     */
+    long eject(long baseNanos, long maxNanos) {
+        final long duration = Math.min(maxNanos, baseNanos << Math.min(ejections, 16));
+        ejections++;
+        consecutiveFailures.set(0);
+        ejectedUntilNanos = System.nanoTime() + duration;
+        return duration;
+    }
+
+    /**
+     * @return whether the health changed
+     */
+    boolean setProbeHealthy(boolean healthy) {
+        final boolean changed = probeHealthy != healthy;
+        probeHealthy = healthy;
+        return changed;
+    }
+
+    /**
+     * @return calls in progress, health and latency of the replica
+     */
+    Map<String, Object> stats() {
+        final Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("url", url);
+        stats.put("available", isAvailable(System.nanoTime()));
+        stats.put("probeHealthy", probeHealthy);
+        stats.put("circuitBreaker", circuitBreaker.getState().name());
+        stats.put("ejectedForMs", Math.max(0, TimeUnit.NANOSECONDS.toMillis(ejectedUntilNanos - System.nanoTime())));
+        stats.put("outstanding", outstanding.get());
+        stats.put("consecutiveFailures", consecutiveFailures.get());
+        stats.put("successes", successTimer.count());
+        stats.put("errors", errorTimer.count());
+        stats.put("meanSuccessMs", successTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxSuccessMs", successTimer.max(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+}
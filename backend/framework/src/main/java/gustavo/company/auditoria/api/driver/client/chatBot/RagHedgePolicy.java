@@ -0,0 +1,83 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Decides when a question still unanswered deserves a second, hedged call to
+ * another replica: once it has waited longer than the {@code percentile} of
+ * recent answer latencies, and never sooner than {@code min-delay-ms}.
+ * Hedging stays off until {@code min-samples} answers were timed.
+ */
+@Component
+public class RagHedgePolicy {
+
+    private final boolean enabled;
+    private final long minDelayMs;
+    private final long minSamples;
+    private final Timer latencyTimer;
+    private final Counter hedgedCounter;
+    private final Counter hedgeWonCounter;
+
+    private volatile long delayMs = -1;
+
+    public RagHedgePolicy(
+            @Value("${rag.lb.hedging.enabled:false}") boolean enabled,
+            @Value("${rag.lb.hedging.percentile:0.95}") double percentile,
+            @Value("${rag.lb.hedging.min-delay-ms:1000}") long minDelayMs,
+            @Value("${rag.lb.hedging.min-samples:20}") long minSamples,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minDelayMs = minDelayMs;
+        this.minSamples = minSamples;
+        this.latencyTimer = Timer.builder("rag.hedge.latency")
+                .publishPercentiles(percentile)
+                .register(meterRegistry);
+        this.hedgedCounter = meterRegistry.counter("rag.hedge.calls");
+        this.hedgeWonCounter = meterRegistry.counter("rag.hedge.won");
+    }
+
+    /**
+     * @return how long to wait for the first call before hedging, in
+     *         milliseconds, or -1 to not hedge
+     */
+    public long delayMillis() {
+        return enabled ? delayMs : -1;
+    }
+
+    /**
+     * @param latencyNanos time a replica took to answer
+     */
+    public void record(long latencyNanos) {
+        if (enabled) {
+            latencyTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void onHedged() {
+        hedgedCounter.increment();
+    }
+
+    public void onHedgeWon() {
+        hedgeWonCounter.increment();
+    }
+
+    /**
+     * Refreshes the delay from the latency percentile, off the request path.
+     */
+    @Scheduled(fixedDelayString = "${rag.lb.hedging.refresh-interval-ms:5000}")
+    public void refresh() {
+        if (!enabled || latencyTimer.count() < minSamples) return;
+        final ValueAtPercentile[] percentiles = latencyTimer.takeSnapshot().percentileValues();
+        if (percentiles.length == 0) return;
+        delayMs = Math.max(minDelayMs, (long) percentiles[0].value(TimeUnit.MILLISECONDS));
+    }
+}
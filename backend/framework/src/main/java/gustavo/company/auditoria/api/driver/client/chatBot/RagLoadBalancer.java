@@ -0,0 +1,206 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import gustavo.company.exception.ServiceUnavailable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spreads calls over the replicas listed in {@code rag.api.url}, separated by
+ * commas.
+ * <p>
+ * Each call goes to the less busy of two replicas picked at random among the
+ * available ones (power of two choices), which avoids both the herding of a
+ * plain least-outstanding choice and the blindness of round robin. A replica
+ * leaves rotation after {@code ejection.consecutive-failures} failed calls in
+ * a row (passive ejection, doubling the time out on every ejection in a row)
+ * or while its {@code /health} probe fails (active check), and while its own
+ * {@link RagCircuitBreaker} is open. When no replica is available, calls go to
+ * any replica rather than nowhere; that replica's breaker may still reject
+ * them.
+ */
+@Component
+@Slf4j
+public class RagLoadBalancer {
+
+    private final List<RagEndpoint> endpoints;
+    private final int ejectionConsecutiveFailures;
+    private final long ejectionBaseNanos;
+    private final long ejectionMaxNanos;
+    private final Duration probeTimeout;
+    private final HttpClient probeClient;
+    private final Counter ejectionCounter;
+
+    public RagLoadBalancer(
+            @Value("${rag.api.url}") String urls,
+            @Value("${rag.lb.ejection.consecutive-failures:5}") int ejectionConsecutiveFailures,
+            @Value("${rag.lb.ejection.base-seconds:30}") long ejectionBaseSeconds,
+            @Value("${rag.lb.ejection.max-seconds:300}") long ejectionMaxSeconds,
+            @Value("${rag.lb.probe.timeout-ms:1000}") long probeTimeoutMs,
+            @Value("${rag.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${rag.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${rag.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${rag.circuit-breaker.slow-call-rate-threshold:80}") double slowCallRateThreshold,
+            @Value("${rag.circuit-breaker.slow-call-duration-ms:30000}") long slowCallDurationMs,
+            @Value("${rag.circuit-breaker.open-duration-seconds:30}") long openDurationSeconds,
+            @Value("${rag.circuit-breaker.half-open-calls:3}") int halfOpenCalls,
+            MeterRegistry meterRegistry) {
+        final RagCircuitBreaker.Settings breakerSettings = new RagCircuitBreaker.Settings(windowSize, minimumCalls,
+                failureRateThreshold, slowCallRateThreshold, slowCallDurationMs, openDurationSeconds, halfOpenCalls);
+        this.endpoints = Arrays.stream(urls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> url.endsWith("/") ? url.substring(0, url.length() - 1) : url)
+                .distinct()
+                .map(url -> new RagEndpoint(url, new RagCircuitBreaker(url, breakerSettings, meterRegistry),
+                        meterRegistry))
+                .toList();
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("rag.api.url must list at least one RAG server");
+        }
+        this.ejectionConsecutiveFailures = ejectionConsecutiveFailures;
+        this.ejectionBaseNanos = TimeUnit.SECONDS.toNanos(ejectionBaseSeconds);
+        this.ejectionMaxNanos = TimeUnit.SECONDS.toNanos(ejectionMaxSeconds);
+        this.probeTimeout = Duration.ofMillis(probeTimeoutMs);
+        this.probeClient = HttpClient.newBuilder().connectTimeout(probeTimeout).build();
+        this.ejectionCounter = meterRegistry.counter("rag.endpoint.ejections");
+        log.info("RAG load balancer initialized with {} replicas: {}", endpoints.size(),
+                endpoints.stream().map(RagEndpoint::url).toList());
+    }
+
+    /**
+     * @return number of replicas
+     */
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * Picks the replica for a call. The caller must then ask the replica's
+     * breaker with {@link #acquirePermission}, and report the outcome with
+     * exactly one of {@link #onSuccess}, {@link #onFailure} or
+     * {@link #onRelease} after {@link #onStart}, or give the permission back
+     * with {@link #releasePermission} if the call never starts.
+     *
+     * @param exclude replica to avoid, e.g. the one a hedged call is already
+     *                waiting on, or null
+     * @return the chosen replica, or null if {@code exclude} is the only one
+     */
+    public RagEndpoint choose(RagEndpoint exclude) {
+        final RagEndpoint available = choose(exclude, System.nanoTime(), true);
+        // every replica is out: trying one beats failing for sure
+        return available != null ? available : choose(exclude, 0, false);
+    }
+
+    private RagEndpoint choose(RagEndpoint exclude, long nowNanos, boolean availableOnly) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        RagEndpoint first = null;
+        RagEndpoint second = null;
+        int seen = 0;
+        // reservoir sample of two candidates, without building a list
+        for (RagEndpoint endpoint : endpoints) {
+            if (endpoint == exclude || availableOnly && !endpoint.isAvailable(nowNanos)) continue;
+            seen++;
+            if (seen == 1) {
+                first = endpoint;
+            } else if (seen == 2) {
+                second = endpoint;
+            } else {
+                final int slot = random.nextInt(seen);
+                if (slot == 0) first = endpoint;
+                else if (slot == 1) second = endpoint;
+            }
+        }
+        if (second == null) return first;
+        return first.outstanding() <= second.outstanding() ? first : second;
+    }
+
+    /**
+     * @throws ServiceUnavailable if the replica's breaker is open
+     */
+    public void acquirePermission(RagEndpoint endpoint) {
+        endpoint.circuitBreaker().acquirePermission();
+    }
+
+    public void releasePermission(RagEndpoint endpoint) {
+        endpoint.circuitBreaker().releasePermission();
+    }
+
+    public void onStart(RagEndpoint endpoint) {
+        endpoint.onStart();
+    }
+
+    public void onSuccess(RagEndpoint endpoint, long latencyNanos) {
+        endpoint.onSuccess(latencyNanos);
+    }
+
+    /**
+     * Records a failure caused by the replica, ejecting it once it failed
+     * {@code ejection.consecutive-failures} calls in a row.
+     */
+    public void onFailure(RagEndpoint endpoint, long latencyNanos) {
+        if (endpoint.onFailure(latencyNanos) >= ejectionConsecutiveFailures) {
+            final long ejectedFor = endpoint.eject(ejectionBaseNanos, ejectionMaxNanos);
+            ejectionCounter.increment();
+            log.warn("RAG replica {} ejected for {} s after {} failures in a row", endpoint.url(),
+                    TimeUnit.NANOSECONDS.toSeconds(ejectedFor), ejectionConsecutiveFailures);
+        }
+    }
+
+    public void onRelease(RagEndpoint endpoint) {
+        endpoint.onRelease();
+    }
+
+    /**
+     * Probes {@code /health} of every replica in parallel; a replica that does
+     * not answer 200 within {@code probe.timeout-ms} leaves rotation until a
+     * probe succeeds again.
+     */
+    @Scheduled(initialDelayString = "${rag.lb.probe.interval-ms:5000}",
+            fixedDelayString = "${rag.lb.probe.interval-ms:5000}")
+    public void probe() {
+        CompletableFuture.allOf(endpoints.stream().map(this::probe).toArray(CompletableFuture[]::new)).join();
+    }
+
+    private CompletableFuture<Void> probe(RagEndpoint endpoint) {
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint.url() + "/health"))
+                .timeout(probeTimeout)
+                .GET()
+                .build();
+        return probeClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    final boolean healthy = error == null && response.statusCode() == 200;
+                    if (endpoint.setProbeHealthy(healthy)) {
+                        if (healthy) {
+                            log.info("RAG replica {} passed its health probe, back in rotation", endpoint.url());
+                        } else {
+                            log.warn("RAG replica {} failed its health probe, out of rotation", endpoint.url(), error);
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * @return calls in progress, health and latency of every replica
+     */
+    public List<Map<String, Object>> stats() {
+        return endpoints.stream().map(RagEndpoint::stats).toList();
+    }
+}
@@ -0,0 +1,124 @@
+package gustavo.company.auditoria.api.driver.retrieval;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import gustavo.company.client.DocumentRetriever;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lexical retrieval over the RAG corpus, served in-process with BM25.
+ * <p>
+ * At startup the index file is rebuilt if it is missing or older than any
+ * {@code .txt} file in the documents directory, then memory-mapped.
+ */
+@Component
+@Slf4j
+public class Bm25DocumentRetriever implements DocumentRetriever {
+
+    private final boolean enabled;
+    private final Path documentsDir;
+    private final Path indexFile;
+    private final int passageChars;
+    private final int maxBufferedPostings;
+
+    private volatile Bm25Index index;
+
+    public Bm25DocumentRetriever(
+            @Value("${rag.retrieval.enabled:true}") boolean enabled,
+            @Value("${rag.retrieval.documents-dir}") Path documentsDir,
+            @Value("${rag.retrieval.index-file}") Path indexFile,
+            @Value("${rag.retrieval.passage-chars:500}") int passageChars,
+            @Value("${rag.retrieval.max-buffered-postings:1000000}") int maxBufferedPostings) {
+        this.enabled = enabled;
+        this.documentsDir = documentsDir;
+        this.indexFile = indexFile;
+        this.passageChars = passageChars;
+        this.maxBufferedPostings = maxBufferedPostings;
+    }
+
+    @PostConstruct
+    void load() {
+        if (!enabled) {
+            log.info("BM25 retrieval disabled");
+            return;
+        }
+        try {
+            if (isStale()) {
+                rebuild();
+            }
+            index = Bm25Index.open(indexFile);
+            log.info("BM25 index mapped from {}: {} passages, {} terms", indexFile, index.docCount(),
+                    index.termCount());
+        } catch (IOException e) {
+            log.error("Could not load BM25 index from {}, retrieval disabled", indexFile, e);
+        }
+    }
+
+    /**
+     * Finds the passages that best match the query.
+     *
+     * @param query free-text query
+     * @param limit maximum number of passages
+     * @return passages by descending score, each with its source file, text and
+     *         score; empty if retrieval is disabled
+     */
+    @Override
+    public List<Map<String, Object>> search(final String query, final int limit) {
+        final Bm25Index current = index;
+        if (current == null) return List.of();
+
+        return current.search(query, limit).stream()
+                .map(hit -> Map.<String, Object>of(
+                        "source", current.source(hit.doc()),
+                        "text", current.text(hit.doc()),
+                        "score", hit.score()))
+                .toList();
+    }
+
+    private boolean isStale() throws IOException {
+        if (!Files.exists(indexFile)) return true;
+
+        final FileTime indexTime = Files.getLastModifiedTime(indexFile);
+        try (Stream<Path> files = documents()) {
+            return files.anyMatch(file -> {
+                try {
+                    return Files.getLastModifiedTime(file).compareTo(indexTime) > 0;
+                } catch (IOException e) {
+                    return true;
+                }
+            });
+        }
+    }
+
+    private void rebuild() throws IOException {
+        final long start = System.nanoTime();
+        final Path parent = indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        try (Bm25IndexWriter writer = new Bm25IndexWriter(passageChars, maxBufferedPostings, parent);
+                Stream<Path> files = documents()) {
+            for (Path file : files.sorted().toList()) {
+                writer.addFile(file);
+            }
+            writer.write(indexFile);
+            log.info("BM25 index rebuilt from {} with {} passages in {} ms", documentsDir, writer.passageCount(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private Stream<Path> documents() throws IOException {
+        if (!Files.isDirectory(documentsDir)) {
+            throw new IOException("Documents directory not found: " + documentsDir);
+        }
+        return Files.list(documentsDir).filter(file -> file.toString().endsWith(".txt"));
+    }
+}
@@ -0,0 +1,275 @@
+package gustavo.company.auditoria.api.driver.retrieval;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Read-only BM25 index over a memory-mapped file.
+ * <p>
+ * The file is mapped once and read with absolute gets, so opening the index
+ * costs no parsing and its contents live in the page cache rather than on the
+ * heap. Layout (big-endian):
+ *
+ * <pre>
+ * header     magic, version, docCount, termCount, avgDocLength, reserved,
+ *            termsOffset, docsOffset, postingsOffset, stringsOffset, fileLength
+ * terms      termCount x (stringOffset:long, length:int, docFreq:int, postingsOffset:long),
+ *            sorted by the term's UTF-8 bytes
+ * docs       docCount x (tokens:int, sourceLength:int, sourceOffset:long,
+ *            textOffset:long, textLength:int, reserved:int)
+ * postings   per term, docFreq x (varint doc gap, varint term frequency)
+ * strings    UTF-8 bytes of terms, sources and passage texts
+ * </pre>
+ *
+ * A single mapping limits the file to 2 GB; larger corpora are expected to be
+ * split into several indexes.
+ */
+final class Bm25Index {
+
+    static final int MAGIC = 0x424D3235; // "BM25"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int TERM_ENTRY_BYTES = 24;
+    static final int DOC_ENTRY_BYTES = 32;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final MappedByteBuffer buffer;
+    private final int docCount;
+    private final int termCount;
+    private final float avgDocLength;
+    private final int termsOffset;
+    private final int docsOffset;
+    private final int postingsOffset;
+    private final int stringsOffset;
+
+    private Bm25Index(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a BM25 index file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported BM25 index version " + buffer.getInt(4));
+        }
+        this.docCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.avgDocLength = buffer.getFloat(16);
+        this.termsOffset = (int) buffer.getLong(24);
+        this.docsOffset = (int) buffer.getLong(32);
+        this.postingsOffset = (int) buffer.getLong(40);
+        this.stringsOffset = (int) buffer.getLong(48);
+        if (buffer.getLong(56) != buffer.capacity()) {
+            throw new IOException("Truncated BM25 index file");
+        }
+    }
+
+    /**
+     * Maps an index file written by {@link Bm25IndexWriter}.
+     *
+     * @param file index file
+     * @return the mapped index
+     * @throws IOException if the file cannot be mapped or is not a valid index
+     */
+    static Bm25Index open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Bm25Index(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    /**
+     * Scores every passage containing at least one query term with BM25 and
+     * returns the best ones.
+     *
+     * @param query free-text query
+     * @param limit maximum number of hits
+     * @return hits by descending score
+     */
+    List<Hit> search(String query, int limit) {
+        if (docCount == 0 || limit <= 0) return List.of();
+
+        final ScoreAccumulator scores = new ScoreAccumulator();
+        for (String term : new LinkedHashSet<>(Bm25Tokenizer.tokenize(query))) {
+            final int entry = findTerm(term.getBytes(StandardCharsets.UTF_8));
+            if (entry < 0) continue;
+
+            final int docFreq = buffer.getInt(entry + 12);
+            final float idf = (float) Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+            int position = postingsOffset + (int) buffer.getLong(entry + 16);
+            int doc = 0;
+            for (int i = 0; i < docFreq; i++) {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = buffer.get(position++);
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += value;
+
+                int tf = 0;
+                shift = 0;
+                do {
+                    b = buffer.get(position++);
+                    tf |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+
+                final float norm = K1 * (1 - B + B * docLength(doc) / avgDocLength);
+                scores.add(doc, idf * tf * (K1 + 1) / (tf + norm));
+            }
+        }
+        return scores.top(limit);
+    }
+
+    String source(int doc) {
+        final int entry = docsOffset + doc * DOC_ENTRY_BYTES;
+        return string(buffer.getLong(entry + 8), buffer.getInt(entry + 4));
+    }
+
+    String text(int doc) {
+        final int entry = docsOffset + doc * DOC_ENTRY_BYTES;
+        return string(buffer.getLong(entry + 16), buffer.getInt(entry + 24));
+    }
+
+    private int docLength(int doc) {
+        return buffer.getInt(docsOffset + doc * DOC_ENTRY_BYTES);
+    }
+
+    private String string(long offset, int length) {
+        final byte[] bytes = new byte[length];
+        buffer.get(stringsOffset + (int) offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Binary search over the sorted term table.
+     *
+     * @return position of the term's entry, or -1 if the term is not indexed
+     */
+    private int findTerm(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int entry = termsOffset + mid * TERM_ENTRY_BYTES;
+            final int cmp = compareTerm(entry, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private int compareTerm(int entry, byte[] term) {
+        final int offset = stringsOffset + (int) buffer.getLong(entry);
+        final int length = buffer.getInt(entry + 8);
+        final int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            final int cmp = Byte.compareUnsigned(buffer.get(offset + i), term[i]);
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(length, term.length);
+    }
+
+    record Hit(int doc, float score) {
+    }
+
+    /**
+     * Open-addressing map from document ID to accumulated score, sized to the
+     * documents a query actually touches rather than to the whole corpus.
+     */
+    private static final class ScoreAccumulator {
+
+        private int[] docs = new int[64];
+        private float[] scores = new float[64];
+        private int size;
+
+        ScoreAccumulator() {
+            Arrays.fill(docs, -1);
+        }
+
+        void add(int doc, float score) {
+            if (size * 2 >= docs.length) {
+                grow();
+            }
+            final int mask = docs.length - 1;
+            int slot = mix(doc) & mask;
+            while (docs[slot] != -1 && docs[slot] != doc) {
+                slot = (slot + 1) & mask;
+            }
+            if (docs[slot] == -1) {
+                docs[slot] = doc;
+                size++;
+            }
+            scores[slot] += score;
+        }
+
+        List<Hit> top(int limit) {
+            final int k = Math.min(limit, size);
+            final int[] topDocs = new int[k];
+            final float[] topScores = new float[k];
+            int filled = 0;
+            for (int slot = 0; slot < docs.length; slot++) {
+                if (docs[slot] == -1) continue;
+                final float score = scores[slot];
+                if (filled == k && score <= topScores[k - 1]) continue;
+
+                int i = filled < k ? filled++ : k - 1;
+                while (i > 0 && topScores[i - 1] < score) {
+                    topDocs[i] = topDocs[i - 1];
+                    topScores[i] = topScores[i - 1];
+                    i--;
+                }
+                topDocs[i] = docs[slot];
+                topScores[i] = score;
+            }
+
+            final List<Hit> hits = new ArrayList<>(k);
+            for (int i = 0; i < k; i++) {
+                hits.add(new Hit(topDocs[i], topScores[i]));
+            }
+            return hits;
+        }
+
+        private void grow() {
+            final int[] oldDocs = docs;
+            final float[] oldScores = scores;
+            docs = new int[oldDocs.length * 2];
+            scores = new float[oldDocs.length * 2];
+            Arrays.fill(docs, -1);
+            size = 0;
+            for (int slot = 0; slot < oldDocs.length; slot++) {
+                if (oldDocs[slot] != -1) {
+                    add(oldDocs[slot], oldScores[slot]);
+                }
+            }
+        }
+
+        private static int mix(int doc) {
+            final int h = doc * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package gustavo.company.auditoria.api.driver.retrieval;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Builds a BM25 index and writes it in the on-disk format read by
+ * {@link Bm25Index}.
+ * <p>
+ * Documents are split into passages of roughly {@code passageChars}
+ * characters, breaking at line boundaries; each passage is one indexed
+ * document. Nothing grows with the corpus on the heap: passage texts and doc
+ * entries go straight to scratch files, and postings are accumulated in
+ * primitive int lists only until {@code maxBufferedPostings} of them are held,
+ * then spilled as a run sorted by term. {@link #write} merges the runs into
+ * the final postings. Scratch files live in a directory created under
+ * {@code workDir} and removed by {@link #close}.
+ */
+final class Bm25IndexWriter implements Closeable {
+
+    private static final Comparator<byte[]> TERM_ORDER = Arrays::compareUnsigned;
+
+    private final int passageChars;
+    private final int maxBufferedPostings;
+    private final Path scratch;
+    private final Path docsFile;
+    private final Path docStringsFile;
+    private final DataOutputStream docs;
+    private final DataOutputStream docStrings;
+    private final List<Path> runs = new ArrayList<>();
+
+    private Map<String, Postings> postings = new HashMap<>();
+    private int bufferedPostings;
+    private int docCount;
+    private long totalLength;
+    private long docStringsLength;
+    private String lastSource;
+    private long lastSourceOffset;
+    private int lastSourceLength;
+
+    Bm25IndexWriter(int passageChars, int maxBufferedPostings, Path workDir) throws IOException {
+        this.passageChars = passageChars;
+        this.maxBufferedPostings = maxBufferedPostings;
+        this.scratch = Files.createTempDirectory(workDir, "bm25");
+        this.docsFile = scratch.resolve("docs");
+        this.docStringsFile = scratch.resolve("doc-strings");
+        this.docs = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(docsFile)));
+        this.docStrings = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(docStringsFile)));
+    }
+
+    /**
+     * Splits a text file into passages and indexes each of them, reading the
+     * file line by line.
+     *
+     * @param file UTF-8 text file
+     * @throws IOException if the file cannot be read
+     */
+    void addFile(Path file) throws IOException {
+        final String source = file.getFileName().toString();
+        final StringBuilder passage = new StringBuilder();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || passage.length() >= passageChars) {
+                    flush(source, passage);
+                }
+                if (!line.isBlank()) {
+                    passage.append(line.strip()).append('\n');
+                }
+            }
+        }
+        flush(source, passage);
+    }
+
+    private void flush(String source, StringBuilder passage) throws IOException {
+        if (!passage.isEmpty()) {
+            addPassage(source, passage.toString().strip());
+            passage.setLength(0);
+        }
+    }
+
+    void addPassage(String source, String text) throws IOException {
+        final int doc = docCount++;
+        final List<String> tokens = Bm25Tokenizer.tokenize(text);
+        final Map<String, int[]> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.computeIfAbsent(token, t -> new int[1])[0]++;
+        }
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new Postings()).add(doc, tf[0]));
+        bufferedPostings += frequencies.size();
+        totalLength += tokens.size();
+
+        // passages of one file share a single copy of its name
+        if (!source.equals(lastSource)) {
+            final byte[] sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+            lastSource = source;
+            lastSourceOffset = docStringsLength;
+            lastSourceLength = sourceBytes.length;
+            docStrings.write(sourceBytes);
+            docStringsLength += sourceBytes.length;
+        }
+        final byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
+        docs.writeInt(tokens.size());
+        docs.writeInt(lastSourceLength);
+        docs.writeLong(lastSourceOffset);
+        docs.writeLong(docStringsLength);
+        docs.writeInt(textBytes.length);
+        docs.writeInt(0);
+        docStrings.write(textBytes);
+        docStringsLength += textBytes.length;
+
+        if (bufferedPostings >= maxBufferedPostings) {
+            spill();
+        }
+    }
+
+    int passageCount() {
+        return docCount;
+    }
+
+    /**
+     * Writes the buffered postings to a new run, terms in ascending order of
+     * their UTF-8 bytes.
+     */
+    private void spill() throws IOException {
+        if (postings.isEmpty()) return;
+
+        final Path run = scratch.resolve("run-" + runs.size());
+        final List<Map.Entry<byte[], Postings>> sorted = new ArrayList<>(postings.size());
+        postings.forEach((term, termPostings) -> sorted.add(Map.entry(term.getBytes(StandardCharsets.UTF_8),
+                termPostings)));
+        sorted.sort(Map.Entry.comparingByKey(TERM_ORDER));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+            for (Map.Entry<byte[], Postings> entry : sorted) {
+                entry.getValue().writeTo(entry.getKey(), out);
+            }
+        }
+        runs.add(run);
+        postings = new HashMap<>();
+        bufferedPostings = 0;
+    }
+
+    /**
+     * Merges the runs and writes the index to a temporary file, then
+     * atomically moves it to {@code target}, so readers never see a partially
+     * written index.
+     *
+     * @param target index file
+     * @throws IOException if the index cannot be written
+     */
+    void write(Path target) throws IOException {
+        spill();
+        docs.close();
+        docStrings.close();
+
+        final Path termsFile = scratch.resolve("terms");
+        final Path postingsFile = scratch.resolve("postings");
+        final Path termStringsFile = scratch.resolve("term-strings");
+        final int termCount = merge(termsFile, postingsFile, termStringsFile);
+
+        final long termsOffset = Bm25Index.HEADER_BYTES;
+        final long docsOffset = termsOffset + (long) termCount * Bm25Index.TERM_ENTRY_BYTES;
+        final long postingsOffset = docsOffset + (long) docCount * Bm25Index.DOC_ENTRY_BYTES;
+        final long stringsOffset = postingsOffset + Files.size(postingsFile);
+        final long fileLength = stringsOffset + docStringsLength + Files.size(termStringsFile);
+        if (fileLength > Integer.MAX_VALUE) {
+            throw new IOException("Index of " + fileLength + " bytes exceeds the 2 GB limit of a single mapping");
+        }
+
+        final Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "bm25", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(Bm25Index.MAGIC);
+            out.writeInt(Bm25Index.VERSION);
+            out.writeInt(docCount);
+            out.writeInt(termCount);
+            out.writeFloat(docCount == 0 ? 0f : (float) totalLength / docCount);
+            out.writeInt(0);
+            out.writeLong(termsOffset);
+            out.writeLong(docsOffset);
+            out.writeLong(postingsOffset);
+            out.writeLong(stringsOffset);
+            out.writeLong(fileLength);
+
+            Files.copy(termsFile, out);
+            Files.copy(docsFile, out);
+            Files.copy(postingsFile, out);
+            Files.copy(docStringsFile, out);
+            Files.copy(termStringsFile, out);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * K-way merge of the runs into the term table, the postings and the term
+     * strings, which follow the doc strings in the strings section. Runs hold
+     * ascending document IDs, so the postings of a term are the concatenation
+     * of its postings in every run, in run order.
+     *
+     * @return number of distinct terms
+     */
+    private int merge(Path termsFile, Path postingsFile, Path termStringsFile) throws IOException {
+        final List<RunReader> readers = new ArrayList<>(runs.size());
+        final PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, runs.size()),
+                Comparator.comparing((RunReader reader) -> reader.term, TERM_ORDER)
+                        .thenComparingInt(reader -> reader.index));
+        int termCount = 0;
+        try (DataOutputStream terms = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(termsFile)));
+                DataOutputStream merged = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(postingsFile)));
+                DataOutputStream termStrings = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(termStringsFile)))) {
+            for (Path run : runs) {
+                final RunReader reader = new RunReader(readers.size(), run);
+                readers.add(reader);
+                if (reader.next()) queue.add(reader);
+            }
+
+            while (!queue.isEmpty()) {
+                final byte[] term = queue.peek().term;
+                final long postingsStart = merged.size();
+                int docFreq = 0;
+                int previousDoc = 0;
+                while (!queue.isEmpty() && Arrays.equals(queue.peek().term, term)) {
+                    final RunReader reader = queue.poll();
+                    reader.copyPostingsTo(merged, previousDoc);
+                    docFreq += reader.docFreq;
+                    previousDoc = reader.lastDoc;
+                    if (reader.next()) queue.add(reader);
+                }
+
+                terms.writeLong(docStringsLength + termStrings.size());
+                terms.writeInt(term.length);
+                terms.writeInt(docFreq);
+                terms.writeLong(postingsStart);
+                termStrings.write(term);
+                termCount++;
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+        return termCount;
+    }
+
+    /**
+     * Deletes the scratch files.
+     */
+    @Override
+    public void close() throws IOException {
+        docs.close();
+        docStrings.close();
+        try (Stream<Path> files = Files.list(scratch)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(scratch);
+    }
+
+    /**
+     * Postings of one term within a run: ascending document IDs and their term
+     * frequencies.
+     */
+    private static final class Postings {
+
+        private final IntList docs = new IntList();
+        private final IntList frequencies = new IntList();
+
+        void add(int doc, int frequency) {
+            docs.add(doc);
+            frequencies.add(frequency);
+        }
+
+        /**
+         * Writes the term, its document frequency, its last document ID, then
+         * each posting as a varint document gap followed by a varint term
+         * frequency; the first gap is the document ID itself.
+         */
+        void writeTo(byte[] term, DataOutputStream out) throws IOException {
+            final VarIntBuffer encoded = new VarIntBuffer();
+            int previous = 0;
+            for (int i = 0; i < docs.size(); i++) {
+                encoded.write(docs.get(i) - previous);
+                encoded.write(frequencies.get(i));
+                previous = docs.get(i);
+            }
+            out.writeInt(term.length);
+            out.write(term);
+            out.writeInt(docs.size());
+            out.writeInt(previous);
+            out.writeInt(encoded.size);
+            out.write(encoded.bytes, 0, encoded.size);
+        }
+    }
+
+    /**
+     * Reads a run term by term.
+     */
+    private static final class RunReader implements Closeable {
+
+        private final int index;
+        private final DataInputStream in;
+        private final byte[] buffer = new byte[8192];
+        private byte[] term;
+        private int docFreq;
+        private int lastDoc;
+        private int postingsLength;
+
+        RunReader(int index, Path run) throws IOException {
+            this.index = index;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+        }
+
+        /**
+         * Advances to the next term, whose postings must be copied before the
+         * following call.
+         *
+         * @return false at the end of the run
+         */
+        boolean next() throws IOException {
+            final int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            term = in.readNBytes(length);
+            docFreq = in.readInt();
+            lastDoc = in.readInt();
+            postingsLength = in.readInt();
+            return true;
+        }
+
+        /**
+         * Copies the current term's postings, rewriting the first gap against
+         * the last document ID already written for the term.
+         */
+        void copyPostingsTo(OutputStream out, int previousDoc) throws IOException {
+            int firstDoc = 0;
+            int shift = 0;
+            int read = 0;
+            int b;
+            do {
+                b = in.readUnsignedByte();
+                firstDoc |= (b & 0x7F) << shift;
+                shift += 7;
+                read++;
+            } while ((b & 0x80) != 0);
+            VarIntBuffer.writeTo(out, firstDoc - previousDoc);
+            for (int remaining = postingsLength - read; remaining > 0; ) {
+                final int chunk = in.read(buffer, 0, Math.min(buffer.length, remaining));
+                if (chunk < 0) throw new EOFException("Truncated BM25 run");
+                out.write(buffer, 0, chunk);
+                remaining -= chunk;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Growable byte buffer of varints.
+     */
+    private static final class VarIntBuffer {
+
+        private byte[] bytes = new byte[16];
+        private int size;
+
+        void write(int value) {
+            if (size + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        static void writeTo(OutputStream out, int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package gustavo.company.auditoria.api.driver.retrieval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import gustavo.company.utils.TextNormalizer;
+
+/**
+ * Splits text into index terms: case-folded, accent-free runs of letters and
+ * digits. Questions and documents go through the same normalization, so "Título"
+ * in a question matches "titulo" in a document.
+ */
+final class Bm25Tokenizer {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private Bm25Tokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        final List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(TextNormalizer.normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
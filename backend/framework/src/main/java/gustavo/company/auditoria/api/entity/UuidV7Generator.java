@@ -0,0 +1,52 @@
+package gustavo.company.auditoria.api.entity;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+/**
+ * Version 7 UUIDs (RFC 9562): a 48-bit Unix millisecond timestamp followed by
+ * random bits. Consecutive keys land next to each other in the primary-key
+ * B-tree instead of at random pages, as random version 4 UUIDs do.
+ * <p>
+ * The 12 bits after the timestamp hold a counter, so IDs generated within the
+ * same millisecond by this process are still increasing.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // (millis << 12) | counter of the last generated ID
+    private static final AtomicLong LAST = new AtomicLong();
+
+    /**
+     * @return a new version 7 UUID
+     */
+    public static UUID next() {
+        final long now = System.currentTimeMillis() << 12;
+        final long stamp = LAST.accumulateAndGet(now, (last, candidate) -> candidate > last ? candidate : last + 1);
+
+        final long millis = stamp >>> 12;
+        final long counter = stamp & 0xFFF;
+        final long mostSigBits = (millis << 16) | 0x7000L | counter;
+        final long leastSigBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+            EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -4,21 +4,24 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import gustavo.company.auditoria.api.adapter.mapper.UserMapper;
+import gustavo.company.auditoria.api.config.jfr.AuthEvent;
 import gustavo.company.auditoria.api.entity.User;
 import gustavo.company.entity.UserDomain;
+import gustavo.company.exception.Conflict;
 import gustavo.company.exception.InternalServerError;
 import gustavo.company.exception.NotFound;
 import gustavo.company.exception.Unauthorized;
 import gustavo.company.repository.UserRepository;
 import gustavo.company.service.AuthService;
 import gustavo.company.utils.JWTUtils;
-import lombok.RequiredArgsConstructor;
+import gustavo.company.utils.PasswordHasher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -28,26 +31,86 @@ import lombok.extern.slf4j.Slf4j;
  * confirmation messages.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AuthServiceImpl implements AuthService {
 
     private final UserRepository userRepository;
     private final JWTUtils jwtUtils;
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+
+    private final Timer loginSuccessTimer;
+    private final Timer loginFailureTimer;
+    private final Timer registerSuccessTimer;
+    private final Timer registerFailureTimer;
+
+    public AuthServiceImpl(UserRepository userRepository, JWTUtils jwtUtils, PasswordHasher passwordHasher,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.jwtUtils = jwtUtils;
+        this.passwordHasher = passwordHasher;
+        this.loginSuccessTimer = meterRegistry.timer("auth.login.duration", "outcome", "success");
+        this.loginFailureTimer = meterRegistry.timer("auth.login.duration", "outcome", "failure");
+        this.registerSuccessTimer = meterRegistry.timer("auth.register.duration", "outcome", "success");
+        this.registerFailureTimer = meterRegistry.timer("auth.register.duration", "outcome", "failure");
+    }
 
     @Override
     public String login(final String email, final String password) {
+        final long start = System.nanoTime();
+        final AuthEvent event = new AuthEvent();
+        event.begin();
+        try {
+            final String token = authenticate(email, password, event);
+            loginSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "login", true);
+            return token;
+        } catch (RuntimeException e) {
+            loginFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "login", false);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs without a surrounding transaction, so no database connection is
+     * held while the password waits for a hashing thread; the insert commits
+     * on its own.
+     */
+    @Override
+    public String register(final String name, final String email, final String password) {
+        final long start = System.nanoTime();
+        final AuthEvent event = new AuthEvent();
+        event.begin();
+        try {
+            final String token = createUser(name, email, password, event);
+            registerSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "register", true);
+            return token;
+        } catch (RuntimeException e) {
+            registerFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "register", false);
+            throw e;
+        }
+    }
+
+    private String authenticate(final String email, final String password, final AuthEvent event) {
         log.info("Attempting login for email: {}", email);
 
+        if (this.userRepository.definitelyAbsentByEmail(email)) {
+            log.warn("User not found for email: {}", email);
+            throw new NotFound("Invalid credentials");
+        }
+
         UserDomain record = this.userRepository.findByEmail(email)
                 .orElseThrow(() -> {
                     log.warn("User not found for email: {}", email);
                     return new NotFound("Invalid credentials");
                 });
 
-        final boolean passwordMatched = passwordEncoder.matches(password, record.password());
+        final long hashStart = System.nanoTime();
+        final boolean passwordMatched = passwordHasher.matches(password, record.password());
+        event.hashTime = System.nanoTime() - hashStart;
 
         if (!passwordMatched) {
             log.warn("Invalid password attempt for user: {}", email);
@@ -60,16 +123,24 @@ public class AuthServiceImpl implements AuthService {
         return token;
     }
 
-    @Override
-    @Transactional
-    public String register(final String name, final String email, final String password) {
+    private String createUser(final String name, final String email, final String password, final AuthEvent event) {
         log.info("Starting registration for email: {}", email);
 
+        // confirm probable duplicates before paying for the hash and the insert
+        if (userRepository.mightExistByEmail(email) && userRepository.findByEmail(email).isPresent()) {
+            log.warn("Email already registered: {}", email);
+            throw new Conflict("Email already registered");
+        }
+
+        final long hashStart = System.nanoTime();
+        final String passwordHash = passwordHasher.encode(password);
+        event.hashTime = System.nanoTime() - hashStart;
+
         final User user = new User(
                 null,
                 name,
                 email,
-                passwordEncoder.encode(password),
+                passwordHash,
                 LocalDateTime.now());
 
         final UserDomain savedUser = userRepository.save(UserMapper.toDomainComplete(user));
@@ -79,17 +150,27 @@ public class AuthServiceImpl implements AuthService {
         return token;
     }
 
+    /**
+     * Emits the JFR event of a login or registration.
+     */
+    private static void commit(AuthEvent event, String operation, boolean succeeded) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.success = succeeded;
+            event.commit();
+        }
+    }
+
     @Override
-    public Map<String, Object> isAuth(final UUID userId) {
-        UserDomain user = userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.warn("User not found or not authenticated. userId: {}", userId);
-                    return new Unauthorized("User not authenticated");
-                });
+    public Map<String, Object> isAuth(final UUID userId, final String username) {
+        if (userId == null) {
+            log.warn("User not authenticated");
+            throw new Unauthorized("User not authenticated");
+        }
 
         final Map<String, Object> response = new HashMap<>();
         response.put("message", "User is authenticated");
-        response.put("username", user.name());
+        response.put("username", username);
 
         return response;
     }
@@ -0,0 +1,147 @@
+package gustavo.company.auditoria.api.useCase.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import gustavo.company.auditoria.api.config.deadline.Deadline;
+import gustavo.company.client.ChatBotClient;
+import gustavo.company.exception.BadRequest;
+import gustavo.company.exception.RequestTimeout;
+import gustavo.company.exception.ServiceUnavailable;
+import gustavo.company.exception.TooManyRequests;
+import gustavo.company.service.ChatBotService;
+import gustavo.company.utils.TextNormalizer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of the chat bot service responsible for answering batches of
+ * questions, such as the checklist of a document submission.
+ */
+@Service
+@Slf4j
+public class ChatBotServiceImpl implements ChatBotService {
+
+    private final ChatBotClient chatBotClient;
+    private final int maxParallelism;
+
+    public ChatBotServiceImpl(ChatBotClient chatBotClient,
+            @Value("${rag.batch.max-parallelism:4}") int maxParallelism) {
+        this.chatBotClient = chatBotClient;
+        this.maxParallelism = Math.max(1, maxParallelism);
+    }
+
+    /**
+     * Answers a batch of questions. Questions that normalize to the same text are
+     * asked once. At most {@code rag.batch.max-parallelism} questions are in
+     * flight at a time; each completion starts the next one, so no thread waits
+     * for a slot. Cancelling the returned future cancels the questions in flight
+     * and starts no more.
+     *
+     * @param messages questions, in the order the caller expects the results
+     * @return future completed with one result per question, in order, each
+     *         holding either the answer or the error status and message
+     */
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> askBatch(final List<String> messages) {
+        final Map<String, CompletableFuture<Map<String, String>>> byQuestion = new LinkedHashMap<>();
+        final Queue<PendingQuestion> pending = new ConcurrentLinkedQueue<>();
+        final List<CompletableFuture<Map<String, String>>> perItem = new ArrayList<>(messages.size());
+
+        for (String message : messages) {
+            perItem.add(byQuestion.computeIfAbsent(TextNormalizer.normalize(message), key -> {
+                CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+                pending.add(new PendingQuestion(message, result));
+                return result;
+            }));
+        }
+        log.info("Answering batch of {} questions ({} distinct)", messages.size(), byQuestion.size());
+
+        // later questions are asked from completion callbacks, off the request thread
+        final Deadline deadline = Deadline.current();
+        final Queue<CompletableFuture<Map<String, String>>> inFlight = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < Math.min(maxParallelism, byQuestion.size()); i++) {
+            askNext(pending, inFlight, deadline);
+        }
+
+        final CompletableFuture<List<Map<String, Object>>> batch = CompletableFuture.allOf(perItem.stream()
+                .map(item -> item.handle((answer, error) -> null))
+                .toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    final List<Map<String, Object>> results = new ArrayList<>(messages.size());
+                    for (int i = 0; i < messages.size(); i++) {
+                        results.add(toResult(i, messages.get(i), perItem.get(i)));
+                    }
+                    return results;
+                });
+        batch.whenComplete((ignored, error) -> {
+            if (batch.isCancelled()) {
+                log.info("Batch cancelled, dropping {} pending questions", pending.size());
+                pending.clear();
+                inFlight.forEach(answer -> answer.cancel(true));
+            }
+        });
+        return batch;
+    }
+
+    private void askNext(final Queue<PendingQuestion> pending,
+            final Queue<CompletableFuture<Map<String, String>>> inFlight, final Deadline deadline) {
+        final PendingQuestion next = pending.poll();
+        if (next == null) return;
+
+        CompletableFuture<Map<String, String>> answer;
+        try {
+            answer = Deadline.within(deadline, () -> chatBotClient.askAgentAIAsync(next.message()));
+        } catch (RuntimeException e) {
+            answer = CompletableFuture.failedFuture(e);
+        }
+
+        inFlight.add(answer);
+        final CompletableFuture<Map<String, String>> asked = answer;
+        answer.whenComplete((result, error) -> {
+            inFlight.remove(asked);
+            if (error != null) {
+                next.result().completeExceptionally(error);
+            } else {
+                next.result().complete(result);
+            }
+            askNext(pending, inFlight, deadline);
+        });
+    }
+
+    private Map<String, Object> toResult(int index, String question, CompletableFuture<Map<String, String>> item) {
+        final Map<String, Object> result = new HashMap<>();
+        result.put("index", index);
+        result.put("question", question);
+        try {
+            result.put("answer", item.join().get("answer"));
+            result.put("status", 200);
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("Batch question {} failed: {}", index, cause.getMessage());
+            result.put("status", statusOf(cause));
+            result.put("error", cause.getMessage());
+        }
+        return result;
+    }
+
+    private static int statusOf(Throwable error) {
+        if (error instanceof BadRequest) return 400;
+        if (error instanceof TooManyRequests) return 429;
+        if (error instanceof ServiceUnavailable) return 503;
+        if (error instanceof RequestTimeout) return 504;
+        return 500;
+    }
+
+    private record PendingQuestion(String message, CompletableFuture<Map<String, String>> result) {
+    }
+}
@@ -0,0 +1,145 @@
+package gustavo.company.auditoria.api.useCase.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gustavo.company.exception.BadRequest;
+
+/**
+ * Reads users to import, one at a time, from a CSV or NDJSON stream.
+ * <p>
+ * CSV input needs a header naming the {@code name}, {@code email} and
+ * {@code password} columns, in any order; fields may be double-quoted but not
+ * span lines. NDJSON input has one object with those fields per line. Blank
+ * lines are skipped. A malformed line yields a row carrying the error instead
+ * of failing the whole import.
+ */
+final class UserImportReader {
+
+    record Row(int line, String name, String email, String password, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private int line;
+
+    UserImportReader(InputStream input, String format, ObjectMapper objectMapper) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.objectMapper = objectMapper;
+        this.csv = switch (format) {
+            case "csv" -> true;
+            case "ndjson" -> false;
+            default -> throw new BadRequest("Unsupported import format: " + format);
+        };
+        if (csv) {
+            readHeader();
+        }
+    }
+
+    /**
+     * @return the next row, or null at the end of the input
+     * @throws IOException if the input cannot be read
+     */
+    Row next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) return null;
+            line++;
+        } while (text.isBlank());
+
+        return csv ? parseCsv(text) : parseJson(text);
+    }
+
+    private void readHeader() throws IOException {
+        final String header = reader.readLine();
+        line++;
+        if (header == null) throw new BadRequest("CSV header is missing");
+
+        // a UTF-8 byte order mark is not part of the first column name
+        final List<String> names = splitCsv(header.replace("\uFEFF", "").strip());
+        if (names == null) throw new BadRequest("CSV header is malformed");
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).strip().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "email", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new BadRequest("CSV header is missing the '" + required + "' column");
+            }
+        }
+    }
+
+    private Row parseCsv(String text) {
+        final List<String> fields = splitCsv(text);
+        if (fields == null) return new Row(line, null, null, null, "Unterminated quoted field");
+        return new Row(line, field(fields, "name"), field(fields, "email"), field(fields, "password"), null);
+    }
+
+    private String field(List<String> fields, String column) {
+        final int index = columns.get(column);
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    private Row parseJson(String text) {
+        try {
+            final JsonNode node = objectMapper.readTree(text);
+            if (!node.isObject()) return new Row(line, null, null, null, "Line is not a JSON object");
+            return new Row(line, text(node, "name"), text(node, "email"), text(node, "password"), null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, null, null, "Malformed JSON");
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        final JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    /**
+     * Splits one CSV line, honouring double quotes and doubled quotes inside them.
+     *
+     * @return the fields, or null if a quoted field is not closed
+     */
+    private static List<String> splitCsv(String text) {
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) return null;
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,218 @@
+package gustavo.company.auditoria.api.useCase.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gustavo.company.entity.UserDomain;
+import gustavo.company.entity.UserRegistration;
+import gustavo.company.exception.BadRequest;
+import gustavo.company.exception.RequestTimeout;
+import gustavo.company.exception.ServiceUnavailable;
+import gustavo.company.repository.UserRepository;
+import gustavo.company.service.UserImportService;
+import gustavo.company.utils.PasswordHasher;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of the bulk user import, used to onboard a whole client
+ * organisation at once.
+ * <p>
+ * The input is read as a stream and processed in batches of
+ * {@code user.import.batch-size} rows: each batch is validated with the same
+ * rules as registration, its passwords are hashed in parallel and the rows are
+ * inserted in a single statement. Invalid rows and emails that are already
+ * registered are reported per line without aborting the import. If hashing
+ * stays saturated or the request deadline passes, the import stops at the
+ * current batch and the rows handled so far are still reported.
+ */
+@Service
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+
+    private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public UserImportServiceImpl(UserRepository userRepository, PasswordHasher passwordHasher,
+            ObjectMapper objectMapper, Validator validator,
+            @Value("${user.import.batch-size:1000}") int batchSize,
+            @Value("${user.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Imports users from a CSV or NDJSON stream.
+     *
+     * @param input  stream of users, each with name, email and password
+     * @param format {@code csv} or {@code ndjson}
+     * @return counts of rows read, imported, conflicting and invalid, plus the
+     *         first {@code user.import.max-reported-errors} conflicting and
+     *         invalid lines; if the import stopped early, also the reason and
+     *         the first line that was not imported, from which it can be resumed
+     * @throws BadRequest if the format is unsupported or the input unreadable
+     */
+    @Override
+    public Map<String, Object> importUsers(final InputStream input, final String format) {
+        final long start = System.nanoTime();
+        final Report report = new Report();
+        try {
+            final UserImportReader reader = new UserImportReader(input, format, objectMapper);
+            final List<UserImportReader.Row> batch = new ArrayList<>(batchSize);
+            UserImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                report.total++;
+                final String error = validate(row);
+                if (error != null) {
+                    report.invalid(row, error);
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    if (!importBatch(batch, report)) break;
+                    batch.clear();
+                }
+            }
+            if (report.aborted == null) importBatch(batch, report);
+        } catch (IOException e) {
+            log.error("Could not read user import after {} rows", report.total, e);
+            throw new BadRequest("Could not read the import input", e);
+        }
+
+        log.info("User import {} in {} ms: {} rows, {} imported, {} conflicts, {} invalid",
+                report.aborted == null ? "finished" : "aborted at line " + report.abortedAtLine,
+                (System.nanoTime() - start) / 1_000_000, report.total, report.imported, report.conflictCount,
+                report.invalidCount);
+        return report.toMap();
+    }
+
+    private String validate(UserImportReader.Row row) {
+        if (row.error() != null) return row.error();
+
+        final var violations = validator.validate(new UserRegistration(row.name(), row.email(), row.password()));
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * @return false if the batch could not be imported and the import must
+     *         stop, with the reason recorded in the report
+     */
+    private boolean importBatch(List<UserImportReader.Row> batch, Report report) {
+        if (batch.isEmpty()) return true;
+
+        try {
+            insertBatch(batch, report);
+            return true;
+        } catch (ServiceUnavailable | RequestTimeout e) {
+            log.warn("User import stopped at line {}: {}", batch.get(0).line(), e.getMessage());
+            report.abort(batch.get(0), e instanceof RequestTimeout
+                    ? "Request deadline exceeded"
+                    : "Password hashing is saturated");
+            return false;
+        }
+    }
+
+    private void insertBatch(List<UserImportReader.Row> batch, Report report) {
+
+        // confirm probable duplicates first, so they cost no hash
+        final List<UserImportReader.Row> fresh = new ArrayList<>(batch.size());
+        for (UserImportReader.Row row : batch) {
+            if (userRepository.mightExistByEmail(row.email()) && userRepository.findByEmail(row.email()).isPresent()) {
+                report.conflict(row);
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) return;
+
+        final List<String> hashes = passwordHasher.encodeAll(fresh.stream().map(UserImportReader.Row::password).toList());
+        final List<UserDomain> users = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            final UserImportReader.Row row = fresh.get(i);
+            users.add(new UserDomain(null, row.name(), row.email(), hashes.get(i), null));
+        }
+
+        // the same email may appear twice in the input; only one of them is saved
+        final Map<String, Integer> saved = new HashMap<>();
+        for (UserDomain user : userRepository.saveAllSkippingConflicts(users)) {
+            saved.merge(user.email(), 1, Integer::sum);
+        }
+        for (UserImportReader.Row row : fresh) {
+            if (saved.getOrDefault(row.email(), 0) > 0) {
+                saved.merge(row.email(), -1, Integer::sum);
+                report.imported++;
+            } else {
+                report.conflict(row);
+            }
+        }
+    }
+
+    private final class Report {
+
+        private long total;
+        private long imported;
+        private long conflictCount;
+        private long invalidCount;
+        private final List<Map<String, Object>> conflicts = new ArrayList<>();
+        private final List<Map<String, Object>> invalid = new ArrayList<>();
+        private String aborted;
+        private int abortedAtLine;
+
+        void conflict(UserImportReader.Row row) {
+            conflictCount++;
+            if (conflicts.size() < maxReportedErrors) {
+                conflicts.add(Map.of("line", row.line(), "email", row.email()));
+            }
+        }
+
+        void invalid(UserImportReader.Row row, String error) {
+            invalidCount++;
+            if (invalid.size() < maxReportedErrors) {
+                invalid.add(Map.of("line", row.line(), "error", error));
+            }
+        }
+
+        void abort(UserImportReader.Row firstNotImported, String reason) {
+            aborted = reason;
+            abortedAtLine = firstNotImported.line();
+        }
+
+        Map<String, Object> toMap() {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("total", total);
+            map.put("imported", imported);
+            map.put("conflictCount", conflictCount);
+            map.put("invalidCount", invalidCount);
+            map.put("conflicts", conflicts);
+            map.put("invalid", invalid);
+            if (aborted != null) {
+                map.put("aborted", aborted);
+                map.put("abortedAtLine", abortedAtLine);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package gustavo.company.auditoria.api.useCase.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Service;
+
+import gustavo.company.entity.UserSummary;
+import gustavo.company.exception.BadRequest;
+import gustavo.company.repository.UserRepository;
+import gustavo.company.service.UserListingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of the user listing service, for administrators browsing or
+ * exporting the user base.
+ * <p>
+ * Pages are addressed by an opaque cursor holding the {@code (createdAt, id)}
+ * key of the last user returned, so fetching page N costs the same as fetching
+ * the first one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserListingServiceImpl implements UserListingService {
+
+    private final UserRepository userRepository;
+
+    /**
+     * Lists one page of users.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the
+     *               first page
+     * @param limit  maximum number of users in the page
+     * @return the users and, if more may follow, the cursor of the next page
+     * @throws BadRequest if the cursor is malformed
+     */
+    @Override
+    public Map<String, Object> listUsers(final String cursor, final int limit) {
+        final List<UserSummary> users;
+        if (cursor == null || cursor.isBlank()) {
+            users = userRepository.findPageAfter(null, null, limit);
+        } else {
+            final Key key = decode(cursor);
+            users = userRepository.findPageAfter(key.createdAt(), key.id(), limit);
+        }
+
+        final Map<String, Object> response = new HashMap<>();
+        response.put("users", users);
+        response.put("nextCursor", users.size() < limit ? null : encode(users.getLast()));
+        return response;
+    }
+
+    /**
+     * Passes every user to the consumer, in creation order, without holding them
+     * in memory.
+     *
+     * @param consumer receives each user summary
+     */
+    @Override
+    public void exportUsers(final Consumer<UserSummary> consumer) {
+        userRepository.forEachSummary(consumer);
+    }
+
+    private record Key(LocalDateTime createdAt, UUID id) {
+    }
+
+    private static String encode(UserSummary user) {
+        final String key = user.createdAt() + "|" + user.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Key decode(String cursor) {
+        try {
+            final String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final int separator = key.indexOf('|');
+            if (separator < 0) throw new BadRequest("Invalid cursor");
+            return new Key(LocalDateTime.parse(key.substring(0, separator)),
+                    UUID.fromString(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.warn("Invalid user listing cursor: {}", cursor);
+            throw new BadRequest("Invalid cursor", e);
+        }
+    }
+}
@@ -2,22 +2,36 @@ package gustavo.company.auditoria.api.useCase.service.utils;
 
 
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 
+import gustavo.company.auditoria.api.config.jfr.TokenVerificationEvent;
 import gustavo.company.entity.UserDomain;
 import gustavo.company.exception.JWTException;
 import gustavo.company.utils.JWTUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +47,11 @@ public class JWTUtilsImpl implements JWTUtils {
     private static final String TOKEN_COOKIE_NAME = "token";
 
     private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final Cache<TokenKey, VerifiedToken> verifiedTokens;
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer invalidTimer;
     private final String ISSUER;
     private final long EXPIRATION_HOURS;
 
@@ -40,15 +59,29 @@ public class JWTUtilsImpl implements JWTUtils {
      * Constructor that initializes the secret key, issuer, and token expiration
      * time.
      *
-     * @param jwtSecret       secret used for HMAC256 token signature
-     * @param issuer          JWT token issuer
-     * @param expirationHours token validity in hours
+     * @param jwtSecret         secret used for HMAC256 token signature
+     * @param issuer            JWT token issuer
+     * @param expirationHours   token validity in hours
+     * @param verifiedCacheSize maximum number of verified tokens remembered
+     * @param meterRegistry     registry for the validation timers
      */
     public JWTUtilsImpl(
             @Value("${spring.security.jwt.password}") String jwtSecret,
             @Value("${spring.security.jwt.issuer}") String issuer,
-            @Value("${spring.security.jwt.expiration-hours}") long expirationHours) {
+            @Value("${spring.security.jwt.expiration-hours}") long expirationHours,
+            @Value("${spring.security.jwt.verified-cache-size:10000}") long verifiedCacheSize,
+            MeterRegistry meterRegistry) {
         this.algorithm = Algorithm.HMAC256(jwtSecret);
+        this.verifier = JWT.require(this.algorithm)
+                .withIssuer(issuer)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(Expiry.creating((TokenKey key, VerifiedToken token) -> token.timeToLive()))
+                .build();
+        this.cachedTimer = meterRegistry.timer("jwt.validation.duration", "result", "cached");
+        this.verifiedTimer = meterRegistry.timer("jwt.validation.duration", "result", "verified");
+        this.invalidTimer = meterRegistry.timer("jwt.validation.duration", "result", "invalid");
         this.ISSUER = issuer;
         this.EXPIRATION_HOURS = expirationHours;
         log.info("JWTUtils initialized with issuer '{}' and expiration of {} hours", issuer, expirationHours);
@@ -79,26 +112,52 @@ public class JWTUtilsImpl implements JWTUtils {
 
     /**
      * Validates the JWT token and extracts the user ID contained in it.
+     * Tokens verified recently are remembered by the SHA-256 of their content
+     * until their own expiration, so repeated requests with the same token skip
+     * the signature check and the JSON decoding.
      *
      * @param token JWT token to be validated
      * @return user ID as a String if valid; null if invalid or expired
      */
     @Override
     public String validateAndExtractUserId(String token) {
+        final TokenVerificationEvent event = new TokenVerificationEvent();
+        event.begin();
+        final long start = System.nanoTime();
+        final TokenKey key = TokenKey.of(token);
+        final VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "cached");
+            return cached.userId();
+        }
+
         try {
-            String userId = JWT.require(this.algorithm)
-                    .withIssuer(this.ISSUER)
-                    .build()
-                    .verify(token)
-                    .getSubject();
+            DecodedJWT decoded = this.verifier.verify(token);
+            String userId = decoded.getSubject();
+            Instant expiresAt = decoded.getExpiresAtAsInstant();
+            if (userId != null && expiresAt != null) {
+                verifiedTokens.put(key, new VerifiedToken(userId, expiresAt));
+            }
+            verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "verified");
             log.debug("JWT token successfully validated for user {}", userId);
             return userId;
         } catch (JWTVerificationException e) {
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "invalid");
             log.warn("Invalid or expired JWT token", e);
             return null;
         }
     }
 
+    private static void commit(TokenVerificationEvent event, String result) {
+        if (event.shouldCommit()) {
+            event.result = result;
+            event.commit();
+        }
+    }
+
     /**
      * Retrieves the user ID from the "token" cookie present in the HTTP request.
      *
@@ -145,5 +204,28 @@ public class JWTUtilsImpl implements JWTUtils {
                 .toInstant(ZoneOffset.of("-03:00"));
     }
 
-   
-}
\ No newline at end of file
+    /**
+     * Cache key holding the SHA-256 digest of a token, so raw tokens are not
+     * retained in memory.
+     */
+    private record TokenKey(long h0, long h1, long h2, long h3) {
+
+        static TokenKey of(String token) {
+            try {
+                ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                        .digest(token.getBytes(StandardCharsets.UTF_8)));
+                return new TokenKey(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+
+    private record VerifiedToken(String userId, Instant expiresAt) {
+
+        Duration timeToLive() {
+            Duration ttl = Duration.between(Instant.now(), expiresAt);
+            return ttl.isNegative() ? Duration.ZERO : ttl;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package gustavo.company.auditoria.api.useCase.service.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import gustavo.company.exception.InternalServerError;
+import gustavo.company.exception.ServiceUnavailable;
+import gustavo.company.utils.PasswordHasher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs password hashing on the bounded {@code passwordHashExecutor}, so a burst
+ * of logins cannot take every core away from the rest of the API. When the
+ * executor's queue is full, or a hash waits longer than {@code max-wait-ms},
+ * the caller is rejected with {@link ServiceUnavailable} instead of queueing
+ * indefinitely. A hash still in the queue is then dropped; one already running
+ * completes on its pool thread, since BCrypt does not check for interrupts.
+ */
+@Component
+@Slf4j
+public class PasswordHasherImpl implements PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMs;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHasherImpl(
+            PasswordEncoder passwordEncoder,
+            @Qualifier("passwordHashExecutor") ThreadPoolExecutor executor,
+            @Value("${password.hashing.max-wait-ms:5000}") long maxWaitMs,
+            MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.maxWaitMs = maxWaitMs;
+        this.encodeTimer = meterRegistry.timer("password.hash.duration", "operation", "encode");
+        this.matchesTimer = meterRegistry.timer("password.hash.duration", "operation", "matches");
+        this.rejectedCounter = meterRegistry.counter("password.hash.rejected");
+        Gauge.builder("password.hash.queue.size", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    /**
+     * Hashes a password.
+     *
+     * @param rawPassword password in plain text
+     * @return encoded password
+     * @throws ServiceUnavailable if the hashing executor is saturated
+     */
+    @Override
+    public String encode(final String rawPassword) {
+        return run(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Checks a password against its stored hash.
+     *
+     * @param rawPassword     password in plain text
+     * @param encodedPassword stored hash
+     * @return true if the password matches
+     * @throws ServiceUnavailable if the hashing executor is saturated
+     */
+    @Override
+    public boolean matches(final String rawPassword, final String encodedPassword) {
+        return run(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Hashes many passwords in parallel, for bulk imports. At most one hash per
+     * executor thread is queued at a time, so interactive logins still find room
+     * in the queue. If it is full anyway, the import backs off and retries for up
+     * to {@code max-wait-ms} rather than hashing on the caller's thread.
+     *
+     * @param rawPasswords passwords in plain text
+     * @return encoded passwords, in the same order
+     * @throws ServiceUnavailable if the executor stays saturated
+     */
+    @Override
+    public List<String> encodeAll(final List<String> rawPasswords) {
+        final Semaphore inFlight = new Semaphore(executor.getMaximumPoolSize());
+        final List<CompletableFuture<String>> hashes = new ArrayList<>(rawPasswords.size());
+        for (String rawPassword : rawPasswords) {
+            final Supplier<String> task = () -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword));
+            inFlight.acquireUninterruptibly();
+            final CompletableFuture<String> hash;
+            try {
+                hash = submitWaiting(task);
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+            hashes.add(hash.whenComplete((result, error) -> inFlight.release()));
+        }
+        return hashes.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Submits a bulk hash, retrying with a growing pause while the queue is full.
+     */
+    private CompletableFuture<String> submitWaiting(final Supplier<String> task) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        long pauseMs = 1;
+        while (true) {
+            try {
+                return CompletableFuture.supplyAsync(task, executor);
+            } catch (RejectedExecutionException e) {
+                if (System.nanoTime() - deadline >= 0) {
+                    rejectedCounter.increment();
+                    log.warn("Password hashing queue full for {} ms, aborting bulk hashing", maxWaitMs);
+                    throw new ServiceUnavailable("Password hashing is saturated, try again shortly", 1);
+                }
+            }
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InternalServerError("Interrupted while hashing passwords", e);
+            }
+            pauseMs = Math.min(pauseMs * 2, 50);
+        }
+    }
+
+    private <T> T run(Callable<T> task) {
+        final Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Password hashing queue full, rejecting request");
+            throw new ServiceUnavailable("Too many authentication requests, try again shortly", 1);
+        }
+
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            dropIfQueued(future);
+            rejectedCounter.increment();
+            log.warn("Password hashing did not complete within {} ms", maxWaitMs);
+            throw new ServiceUnavailable("Too many authentication requests, try again shortly", 1);
+        } catch (InterruptedException e) {
+            dropIfQueued(future);
+            Thread.currentThread().interrupt();
+            throw new InternalServerError("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new InternalServerError("Error while hashing password", e.getCause());
+        }
+    }
+
+    /**
+     * Cancels a hash and frees its place in the queue if it has not started.
+     * Interrupting a running hash would not stop it, so it is left to finish.
+     */
+    private void dropIfQueued(Future<?> future) {
+        future.cancel(false);
+        if (future instanceof Runnable queued) {
+            executor.remove(queued);
+        }
+    }
+}
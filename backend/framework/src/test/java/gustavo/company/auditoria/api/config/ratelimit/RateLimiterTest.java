@@ -0,0 +1,87 @@
+package gustavo.company.auditoria.api.config.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import gustavo.company.exception.BadRequest;
+import gustavo.company.exception.TooManyRequests;
+
+class RateLimiterTest {
+
+    private final UUID user = UUID.randomUUID();
+
+    private static RateLimiter limiter(int capacity, int refillPerMinute) {
+        return new RateLimiter(new RateLimitProperties(Duration.ofMinutes(10), 1_000,
+                Map.of("chat", new RateLimitProperties.Policy(List.of("/api/v1/chat-bot/**"), capacity,
+                        refillPerMinute))));
+    }
+
+    @Test
+    void allowsABurstUpToTheCapacity() {
+        final RateLimiter limiter = limiter(3, 60);
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("chat", user, 1);
+        }
+
+        assertThatThrownBy(() -> limiter.acquire("chat", user, 1))
+                .isInstanceOfSatisfying(TooManyRequests.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(1));
+    }
+
+    @Test
+    void chargesSeveralPermitsAtOnce() {
+        final RateLimiter limiter = limiter(3, 60);
+        limiter.acquire("chat", user, 3);
+
+        assertThatThrownBy(() -> limiter.acquire("chat", user, 1)).isInstanceOf(TooManyRequests.class);
+    }
+
+    @Test
+    void retryDelayCoversTheMissingTokens() {
+        final RateLimiter limiter = limiter(3, 6);
+        limiter.acquire("chat", user, 3);
+
+        assertThatThrownBy(() -> limiter.acquire("chat", user, 2))
+                .isInstanceOfSatisfying(TooManyRequests.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(20));
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        final RateLimiter limiter = limiter(1, 6_000);
+        limiter.acquire("chat", user, 1);
+        assertThatThrownBy(() -> limiter.acquire("chat", user, 1)).isInstanceOf(TooManyRequests.class);
+
+        Thread.sleep(30);
+
+        assertThatNoException().isThrownBy(() -> limiter.acquire("chat", user, 1));
+    }
+
+    @Test
+    void rejectsMorePermitsThanTheBucketHolds() {
+        assertThatThrownBy(() -> limiter(3, 60).acquire("chat", user, 4)).isInstanceOf(BadRequest.class);
+    }
+
+    @Test
+    void keepsABucketPerUser() {
+        final RateLimiter limiter = limiter(1, 60);
+        limiter.acquire("chat", user, 1);
+
+        assertThatNoException().isThrownBy(() -> limiter.acquire("chat", UUID.randomUUID(), 1));
+    }
+
+    @Test
+    void ignoresUnknownPolicies() {
+        final RateLimiter limiter = limiter(1, 60);
+
+        assertThatNoException().isThrownBy(() -> limiter.acquire("unknown", user, 100));
+    }
+}
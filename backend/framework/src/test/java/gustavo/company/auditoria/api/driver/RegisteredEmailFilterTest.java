@@ -0,0 +1,132 @@
+package gustavo.company.auditoria.api.driver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import gustavo.company.auditoria.api.driver.client.UserRepositoryOrm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RegisteredEmailFilterTest {
+
+    private UserRepositoryOrm userRepositoryOrm;
+    private RegisteredEmailFilter filter;
+
+    private RegisteredEmailFilter filter(boolean trustMisses) {
+        return new RegisteredEmailFilter(userRepositoryOrm, mock(PlatformTransactionManager.class), true, 1, 100,
+                trustMisses, 60, new SimpleMeterRegistry());
+    }
+
+    @BeforeEach
+    void setUp() {
+        userRepositoryOrm = mock(UserRepositoryOrm.class);
+        when(userRepositoryOrm.streamAllEmails())
+                .thenAnswer(invocation -> Stream.of("Ana@Example.com", "bob@example.com"));
+        filter = filter(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reportsEverythingAsPossiblyRegisteredUntilBuilt() {
+        assertThat(filter.mightContain("nobody@example.com")).isTrue();
+        assertThat(filter.falsePositiveRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    void containsEveryStoredEmailIgnoringCaseAndSpaces() {
+        filter.rebuild();
+
+        assertThat(filter.mightContain("ana@example.com")).isTrue();
+        assertThat(filter.mightContain(" BOB@example.com ")).isTrue();
+        assertThat(filter.mightContain("carol@example.com")).isFalse();
+        assertThat(filter.mightContain("dave@example.com")).isFalse();
+        assertThat(filter.falsePositiveRate()).isLessThan(0.001);
+    }
+
+    @Test
+    void addsEmailsSavedOutsideATransactionRightAway() {
+        filter.rebuild();
+        filter.add("carol@example.com");
+
+        assertThat(filter.mightContain("carol@example.com")).isTrue();
+    }
+
+    @Test
+    void addsEmailsSavedInATransactionOnlyOnCommit() {
+        filter.rebuild();
+        TransactionSynchronizationManager.initSynchronization();
+
+        filter.add("carol@example.com");
+        assertThat(filter.mightContain("carol@example.com")).isFalse();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(filter.mightContain("carol@example.com")).isTrue();
+    }
+
+    @Test
+    void keepsEmailsCommittedWhileRebuilding() {
+        when(userRepositoryOrm.streamAllEmails()).thenAnswer(invocation -> {
+            filter.add("carol@example.com");
+            return Stream.of("ana@example.com");
+        });
+
+        filter.rebuild();
+
+        assertThat(filter.mightContain("carol@example.com")).isTrue();
+    }
+
+    @Test
+    void trustsMissesOnlyWhenConfigured() {
+        filter.rebuild();
+        assertThat(filter.definitelyAbsent("carol@example.com")).isFalse();
+
+        final RegisteredEmailFilter trusting = filter(true);
+        assertThat(trusting.definitelyAbsent("carol@example.com")).isFalse();
+
+        trusting.rebuild();
+        assertThat(trusting.definitelyAbsent("carol@example.com")).isTrue();
+        assertThat(trusting.definitelyAbsent("ana@example.com")).isFalse();
+    }
+
+    @Test
+    void distrustsMissesWhileRebuilding() {
+        final RegisteredEmailFilter trusting = filter(true);
+        trusting.rebuild();
+        final boolean[] trustedDuringRebuild = new boolean[1];
+        when(userRepositoryOrm.streamAllEmails()).thenAnswer(invocation -> {
+            trustedDuringRebuild[0] = trusting.definitelyAbsent("carol@example.com");
+            throw new IllegalStateException("database down");
+        });
+
+        trusting.rebuild();
+
+        assertThat(trustedDuringRebuild[0]).isFalse();
+        assertThat(trusting.definitelyAbsent("carol@example.com")).isTrue();
+    }
+
+    @Test
+    void keepsThePreviousFilterWhenARebuildFails() {
+        filter.rebuild();
+        when(userRepositoryOrm.streamAllEmails()).thenThrow(new IllegalStateException("database down"));
+
+        filter.rebuild();
+
+        assertThat(filter.mightContain("ana@example.com")).isTrue();
+        assertThat(filter.mightContain("carol@example.com")).isFalse();
+    }
+}
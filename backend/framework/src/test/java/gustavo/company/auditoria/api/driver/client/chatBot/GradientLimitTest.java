@@ -0,0 +1,63 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class GradientLimitTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final GradientLimit limit = new GradientLimit(10, 2, 50, 1.5, 0.2, 0.9);
+
+    @Test
+    void growsWhileLatencyStaysFlat() {
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(RTT, limit.current());
+        }
+
+        assertThat(limit.current()).isEqualTo(50);
+    }
+
+    @Test
+    void shrinksWhenLatencyInflates() {
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(RTT, limit.current());
+        }
+        final int saturated = limit.current();
+
+        for (int i = 0; i < 30; i++) {
+            limit.onSample(10 * RTT, limit.current());
+        }
+
+        assertThat(limit.current()).isLessThan(saturated).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void ignoresSamplesWithFewCallsInFlight() {
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(RTT, 1);
+        }
+
+        assertThat(limit.current()).isEqualTo(10);
+    }
+
+    @Test
+    void backsOffOnDroppedCallsDownToTheMinimum() {
+        limit.onDropped();
+        assertThat(limit.current()).isEqualTo(9);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onDropped();
+        }
+        assertThat(limit.current()).isEqualTo(2);
+    }
+
+    @Test
+    void clampsTheInitialLimit() {
+        assertThat(new GradientLimit(100, 2, 50, 1.5, 0.2, 0.9).current()).isEqualTo(50);
+        assertThat(new GradientLimit(1, 2, 50, 1.5, 0.2, 0.9).current()).isEqualTo(2);
+    }
+}
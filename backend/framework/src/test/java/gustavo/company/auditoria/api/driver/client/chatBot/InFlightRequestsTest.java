@@ -0,0 +1,92 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+class InFlightRequestsTest {
+
+    private final InFlightRequests<String> inFlight = new InFlightRequests<>();
+    private final AtomicInteger started = new AtomicInteger();
+    private CompletableFuture<String> call = new CompletableFuture<>();
+
+    private final Supplier<CompletableFuture<String>> starter = () -> {
+        started.incrementAndGet();
+        return call;
+    };
+
+    @Test
+    void concurrentCallersShareOneCall() {
+        final CompletableFuture<String> first = inFlight.execute("key", starter);
+        final CompletableFuture<String> second = inFlight.execute("key", starter);
+        assertThat(started).hasValue(1);
+        assertThat(inFlight.size()).isEqualTo(1);
+
+        call.complete("answer");
+
+        assertThat(first.join()).isEqualTo("answer");
+        assertThat(second.join()).isEqualTo("answer");
+        assertThat(inFlight.size()).isZero();
+    }
+
+    @Test
+    void differentKeysStartTheirOwnCalls() {
+        inFlight.execute("a", starter);
+        inFlight.execute("b", starter);
+
+        assertThat(started).hasValue(2);
+    }
+
+    @Test
+    void everyCallerSeesTheFailure() {
+        final CompletableFuture<String> first = inFlight.execute("key", starter);
+        final CompletableFuture<String> second = inFlight.execute("key", starter);
+
+        call.completeExceptionally(new IllegalStateException("down"));
+
+        assertThatThrownBy(first::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(inFlight.size()).isZero();
+    }
+
+    @Test
+    void callIsCancelledOnlyWhenTheLastCallerLeaves() {
+        final CompletableFuture<String> first = inFlight.execute("key", starter);
+        final CompletableFuture<String> second = inFlight.execute("key", starter);
+
+        first.cancel(true);
+        assertThat(call).isNotDone();
+        assertThat(second).isNotDone();
+
+        second.cancel(true);
+        assertThat(call).isCancelled();
+    }
+
+    @Test
+    void callerArrivingAfterEveryoneLeftStartsANewCall() {
+        inFlight.execute("key", starter).cancel(true);
+        assertThat(call).isCancelled();
+
+        call = new CompletableFuture<>();
+        final CompletableFuture<String> next = inFlight.execute("key", starter);
+        call.complete("fresh");
+
+        assertThat(started).hasValue(2);
+        assertThat(next.join()).isEqualTo("fresh");
+    }
+
+    @Test
+    void failureToStartReachesTheCaller() {
+        final CompletableFuture<String> result = inFlight.execute("key", () -> {
+            throw new IllegalArgumentException("bad");
+        });
+
+        assertThatThrownBy(result::join).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(inFlight.size()).isZero();
+    }
+}
@@ -0,0 +1,100 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import gustavo.company.exception.ServiceUnavailable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RagBulkheadTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RagBulkhead fixed(int maxConcurrent, long maxWaitMs, int maxQueued) {
+        return new RagBulkhead(maxConcurrent, maxWaitMs, maxQueued, false, 2, 50, 1.5, 0.2, 0.9, meterRegistry);
+    }
+
+    private RagBulkhead adaptive(int initialLimit, long maxWaitMs) {
+        return new RagBulkhead(initialLimit, maxWaitMs, 10, true, 2, 50, 1.5, 0.2, 0.9, meterRegistry);
+    }
+
+    @Test
+    void rejectsRightAwayWhenTheLineIsFull() {
+        final RagBulkhead bulkhead = fixed(1, 5_000, 0);
+        bulkhead.acquire();
+
+        final long start = System.nanoTime();
+        assertThatThrownBy(bulkhead::acquire).isInstanceOf(ServiceUnavailable.class);
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+        assertThat(meterRegistry.counter("rag.bulkhead.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsAfterWaitingTooLong() {
+        final RagBulkhead bulkhead = fixed(1, 50, 1);
+        bulkhead.acquire();
+
+        final long start = System.nanoTime();
+        assertThatThrownBy(bulkhead::acquire).isInstanceOf(ServiceUnavailable.class);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void releaseHandsTheSlotToAWaitingCall() throws Exception {
+        final RagBulkhead bulkhead = fixed(1, 5_000, 1);
+        bulkhead.acquire();
+
+        final CompletableFuture<Void> waiting = CompletableFuture.runAsync(bulkhead::acquire);
+        awaitQueued(1);
+        assertThat(waiting).isNotDone();
+
+        bulkhead.release();
+        waiting.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void adaptiveLimitGrowsWithFastCallsAndBacksOffOnFailures() {
+        final RagBulkhead bulkhead = adaptive(4, 50);
+        for (int i = 0; i < 4; i++) {
+            bulkhead.acquire();
+        }
+
+        for (int i = 0; i < 20; i++) {
+            bulkhead.onSuccess(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        final int grown = bulkhead.limit();
+        assertThat(grown).isGreaterThan(4);
+
+        bulkhead.onDropped();
+        assertThat(bulkhead.limit()).isLessThan(grown);
+    }
+
+    @Test
+    void raisedLimitAdmitsAWaitingCall() throws Exception {
+        final RagBulkhead bulkhead = adaptive(2, 5_000);
+        bulkhead.acquire();
+        bulkhead.acquire();
+
+        final CompletableFuture<Void> waiting = CompletableFuture.runAsync(bulkhead::acquire);
+        awaitQueued(1);
+
+        while (bulkhead.limit() <= 2) {
+            bulkhead.onSuccess(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        waiting.get(1, TimeUnit.SECONDS);
+    }
+
+    private void awaitQueued(int expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("rag.bulkhead.queued").gauge().value() < expected) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
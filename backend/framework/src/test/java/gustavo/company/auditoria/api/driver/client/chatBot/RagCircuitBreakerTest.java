@@ -0,0 +1,116 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import gustavo.company.auditoria.api.driver.client.chatBot.RagCircuitBreaker.State;
+import gustavo.company.exception.ServiceUnavailable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RagCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+    private static RagCircuitBreaker breaker(long openDurationSeconds) {
+        return new RagCircuitBreaker("http://rag",
+                new RagCircuitBreaker.Settings(4, 4, 50, 50, 1_000, openDurationSeconds, 1),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void staysClosedBelowTheMinimumNumberOfCalls() {
+        final RagCircuitBreaker breaker = breaker(60);
+        for (int i = 0; i < 3; i++) {
+            breaker.acquirePermission();
+            breaker.onError(FAST);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void opensAtTheFailureRateThreshold() {
+        final RagCircuitBreaker breaker = breaker(60);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onError(FAST);
+        breaker.onError(FAST);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.permitsCalls(System.nanoTime())).isFalse();
+        assertThatThrownBy(breaker::acquirePermission).isInstanceOf(ServiceUnavailable.class);
+    }
+
+    @Test
+    void opensAtTheSlowCallRateThreshold() {
+        final RagCircuitBreaker breaker = breaker(60);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(SLOW);
+        breaker.onSuccess(SLOW);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        final RagCircuitBreaker breaker = breaker(60);
+        breaker.onError(FAST);
+        for (int i = 0; i < 10; i++) {
+            breaker.onSuccess(FAST);
+        }
+        breaker.onError(FAST);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void halfOpensAfterTheOpenDurationAndClosesOnSuccess() {
+        final RagCircuitBreaker breaker = breaker(0);
+        trip(breaker);
+        assertThat(breaker.permitsCalls(System.nanoTime())).isTrue();
+
+        breaker.acquirePermission();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.permitsCalls(System.nanoTime())).isFalse();
+        assertThatThrownBy(breaker::acquirePermission).isInstanceOf(ServiceUnavailable.class);
+
+        breaker.onSuccess(FAST);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void failedTrialCallReopens() {
+        final RagCircuitBreaker breaker = breaker(0);
+        trip(breaker);
+
+        breaker.acquirePermission();
+        breaker.onError(FAST);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void releasedTrialPermissionCanBeTakenAgain() {
+        final RagCircuitBreaker breaker = breaker(0);
+        trip(breaker);
+
+        breaker.acquirePermission();
+        breaker.releasePermission();
+        breaker.acquirePermission();
+
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+    }
+
+    private static void trip(RagCircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(FAST);
+        }
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+}
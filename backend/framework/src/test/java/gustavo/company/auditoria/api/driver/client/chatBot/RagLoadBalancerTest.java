@@ -0,0 +1,116 @@
+package gustavo.company.auditoria.api.driver.client.chatBot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import gustavo.company.exception.ServiceUnavailable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RagLoadBalancerTest {
+
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private RagLoadBalancer loadBalancer;
+    private RagEndpoint a;
+    private RagEndpoint b;
+
+    private static RagLoadBalancer loadBalancer(String urls, int ejectionFailures, int breakerWindow) {
+        return new RagLoadBalancer(urls, ejectionFailures, 60, 300, 1_000,
+                breakerWindow, breakerWindow, 50, 100, 30_000, 60, 1, new SimpleMeterRegistry());
+    }
+
+    @BeforeEach
+    void setUp() {
+        loadBalancer = loadBalancer("http://a/, http://b", 3, 100);
+        a = loadBalancer.choose(null);
+        b = loadBalancer.choose(a);
+    }
+
+    @Test
+    void parsesTheReplicaList() {
+        assertThat(loadBalancer.size()).isEqualTo(2);
+        assertThat(a.url()).isEqualTo("http://a");
+        assertThat(b.url()).isEqualTo("http://b");
+    }
+
+    @Test
+    void picksTheLessBusyReplica() {
+        loadBalancer.onStart(a);
+        loadBalancer.onStart(a);
+        loadBalancer.onStart(b);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(loadBalancer.choose(null)).isSameAs(b);
+        }
+
+        loadBalancer.onSuccess(a, LATENCY);
+        loadBalancer.onRelease(a);
+        assertThat(loadBalancer.choose(null)).isSameAs(a);
+    }
+
+    @Test
+    void excludedReplicaIsNotChosen() {
+        assertThat(loadBalancer.choose(b)).isSameAs(a);
+
+        final RagLoadBalancer single = loadBalancer("http://a", 3, 100);
+        assertThat(single.choose(single.choose(null))).isNull();
+    }
+
+    @Test
+    void ejectsAReplicaAfterConsecutiveFailures() {
+        fail(a, 3);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(loadBalancer.choose(null)).isSameAs(b);
+        }
+    }
+
+    @Test
+    void successResetsTheFailureStreak() {
+        fail(a, 2);
+        loadBalancer.onStart(a);
+        loadBalancer.onSuccess(a, LATENCY);
+        fail(a, 2);
+
+        assertThat(loadBalancer.choose(null)).isSameAs(a);
+    }
+
+    @Test
+    void fallsBackToAnyReplicaWhenAllAreOut() {
+        fail(a, 3);
+        fail(b, 3);
+
+        assertThat(loadBalancer.choose(null)).isNotNull();
+    }
+
+    @Test
+    void openBreakerTakesOnlyItsReplicaOutOfRotation() {
+        final RagLoadBalancer tolerant = loadBalancer("http://a,http://b", 100, 2);
+        final RagEndpoint first = tolerant.choose(null);
+        final RagEndpoint second = tolerant.choose(first);
+
+        for (int i = 0; i < 2; i++) {
+            tolerant.acquirePermission(first);
+            tolerant.onStart(first);
+            tolerant.onFailure(first, LATENCY);
+        }
+
+        assertThatThrownBy(() -> tolerant.acquirePermission(first)).isInstanceOf(ServiceUnavailable.class);
+        for (int i = 0; i < 20; i++) {
+            assertThat(tolerant.choose(null)).isSameAs(second);
+        }
+        tolerant.acquirePermission(second);
+    }
+
+    private void fail(RagEndpoint endpoint, int times) {
+        for (int i = 0; i < times; i++) {
+            loadBalancer.onStart(endpoint);
+            loadBalancer.onFailure(endpoint, LATENCY);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package gustavo.company.auditoria.api.driver.retrieval;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class Bm25IndexTest {
+
+    private static final List<String> PASSAGES = List.of(
+            "O contrato de locação foi assinado pelo locatário",
+            "A certidão de nascimento do titular está anexada",
+            "O contrato social da empresa e o contrato de trabalho");
+
+    @TempDir
+    Path dir;
+
+    private Path write(int maxBufferedPostings, String name) throws IOException {
+        final Path target = dir.resolve(name);
+        try (Bm25IndexWriter writer = new Bm25IndexWriter(1_000, maxBufferedPostings, dir)) {
+            for (int i = 0; i < PASSAGES.size(); i++) {
+                writer.addPassage("doc" + i + ".txt", PASSAGES.get(i));
+            }
+            writer.write(target);
+        }
+        return target;
+    }
+
+    @Test
+    void findsThePassagesContainingTheQueryTerms() throws IOException {
+        final Bm25Index index = Bm25Index.open(write(1_000, "index"));
+
+        final List<Bm25Index.Hit> hits = index.search("certidão de nascimento", 10);
+
+        assertThat(index.docCount()).isEqualTo(3);
+        assertThat(hits.getFirst().doc()).isEqualTo(1);
+        assertThat(index.source(1)).isEqualTo("doc1.txt");
+        assertThat(index.text(1)).isEqualTo(PASSAGES.get(1));
+    }
+
+    @Test
+    void scoresWithBm25() throws IOException {
+        final Bm25Index index = Bm25Index.open(write(1_000, "index"));
+
+        final List<Bm25Index.Hit> hits = index.search("contrato", 10);
+
+        final double avgLength = PASSAGES.stream().mapToInt(text -> Bm25Tokenizer.tokenize(text).size()).average()
+                .orElseThrow();
+        final double idf = Math.log(1 + (3 - 2 + 0.5) / (2 + 0.5));
+        assertThat(hits).extracting(Bm25Index.Hit::doc).containsExactly(2, 0);
+        assertThat(hits.get(0).score()).isCloseTo((float) bm25(idf, 2, 10, avgLength), within(1e-4f));
+        assertThat(hits.get(1).score()).isCloseTo((float) bm25(idf, 1, 8, avgLength), within(1e-4f));
+    }
+
+    @Test
+    void ignoresCaseAndAccents() throws IOException {
+        final Bm25Index index = Bm25Index.open(write(1_000, "index"));
+
+        assertThat(index.search("CERTIDAO", 10)).extracting(Bm25Index.Hit::doc).containsExactly(1);
+    }
+
+    @Test
+    void returnsNothingForUnknownTermsAndHonoursTheLimit() throws IOException {
+        final Bm25Index index = Bm25Index.open(write(1_000, "index"));
+
+        assertThat(index.search("procuração", 10)).isEmpty();
+        assertThat(index.search("o contrato de", 1)).hasSize(1);
+    }
+
+    @Test
+    void spillingPostingsToDiskWritesTheSameIndex() throws IOException {
+        final Path inMemory = write(1_000_000, "in-memory");
+        final Path spilled = write(2, "spilled");
+
+        assertThat(Files.mismatch(inMemory, spilled)).isEqualTo(-1);
+    }
+
+    @Test
+    void splitsFilesIntoPassagesAtBlankLines() throws IOException {
+        final Path file = dir.resolve("edital.txt");
+        Files.writeString(file, "Primeiro parágrafo\ncontinua aqui\n\nSegundo parágrafo\n");
+        final Path target = dir.resolve("index");
+        try (Bm25IndexWriter writer = new Bm25IndexWriter(1_000, 1_000, dir)) {
+            writer.addFile(file);
+            writer.write(target);
+        }
+
+        final Bm25Index index = Bm25Index.open(target);
+
+        assertThat(index.docCount()).isEqualTo(2);
+        assertThat(index.source(0)).isEqualTo("edital.txt");
+        assertThat(index.text(0)).isEqualTo("Primeiro parágrafo\ncontinua aqui");
+        assertThat(index.search("segundo", 10)).extracting(Bm25Index.Hit::doc).containsExactly(1);
+    }
+
+    private static double bm25(double idf, int tf, int length, double avgLength) {
+        return idf * tf * 2.2 / (tf + 1.2 * (0.25 + 0.75 * length / avgLength));
+    }
+}
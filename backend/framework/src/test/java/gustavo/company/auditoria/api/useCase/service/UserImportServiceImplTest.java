@@ -0,0 +1,89 @@
+package gustavo.company.auditoria.api.useCase.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gustavo.company.exception.RequestTimeout;
+import gustavo.company.exception.ServiceUnavailable;
+import gustavo.company.repository.UserRepository;
+import gustavo.company.utils.PasswordHasher;
+import jakarta.validation.Validator;
+
+class UserImportServiceImplTest {
+
+    private static final String CSV = """
+            name,email,password
+            Ana,ana@example.com,Secret123!
+            Bob,bob@example.com,Secret123!
+            Carol,carol@example.com,Secret123!
+            Dave,dave@example.com,Secret123!
+            Eve,eve@example.com,Secret123!
+            """;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordHasher passwordHasher = mock(PasswordHasher.class);
+    private final UserImportServiceImpl service = new UserImportServiceImpl(userRepository, passwordHasher,
+            new ObjectMapper(), mock(Validator.class), 2, 100);
+
+    private Map<String, Object> importCsv() {
+        return service.importUsers(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)), "csv");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importsEveryRow() {
+        when(passwordHasher.encodeAll(anyList()))
+                .thenAnswer(invocation -> ((List<String>) invocation.getArgument(0)).stream().map(p -> "hash").toList());
+        when(userRepository.saveAllSkippingConflicts(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        final Map<String, Object> report = importCsv();
+
+        assertThat(report).containsEntry("total", 5L).containsEntry("imported", 5L).doesNotContainKey("aborted");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stopsWithAPartialReportWhenHashingIsSaturated() {
+        when(passwordHasher.encodeAll(anyList()))
+                .thenAnswer(invocation -> ((List<String>) invocation.getArgument(0)).stream().map(p -> "hash").toList())
+                .thenThrow(new ServiceUnavailable("Password hashing is saturated"));
+        when(userRepository.saveAllSkippingConflicts(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        final Map<String, Object> report = importCsv();
+
+        assertThat(report)
+                .containsEntry("imported", 2L)
+                .containsEntry("aborted", "Password hashing is saturated")
+                .containsEntry("abortedAtLine", 4);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stopsWithAPartialReportWhenTheDeadlinePasses() {
+        when(passwordHasher.encodeAll(anyList()))
+                .thenAnswer(invocation -> ((List<String>) invocation.getArgument(0)).stream().map(p -> "hash").toList());
+        when(userRepository.saveAllSkippingConflicts(anyList()))
+                .thenThrow(new RequestTimeout("Request deadline exceeded"));
+
+        final Map<String, Object> report = importCsv();
+
+        assertThat(report)
+                .containsEntry("imported", 0L)
+                .containsEntry("conflictCount", 0L)
+                .containsEntry("aborted", "Request deadline exceeded")
+                .containsEntry("abortedAtLine", 2);
+    }
+}
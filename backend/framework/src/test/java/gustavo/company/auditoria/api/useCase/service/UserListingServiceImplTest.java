@@ -0,0 +1,105 @@
+package gustavo.company.auditoria.api.useCase.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import gustavo.company.entity.UserSummary;
+import gustavo.company.exception.BadRequest;
+import gustavo.company.repository.UserRepository;
+
+class UserListingServiceImplTest {
+
+    private static final Comparator<UserSummary> KEY_ORDER = Comparator.comparing(UserSummary::createdAt)
+            .thenComparing(UserSummary::id);
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserListingServiceImpl service = new UserListingServiceImpl(userRepository);
+
+    /**
+     * Backs the repository with an in-memory table, paged by the same
+     * {@code (createdAt, id)} key as the database query.
+     */
+    private List<UserSummary> table(int size) {
+        final LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        // pairs of users share a creation time, so the id has to break ties
+        final List<UserSummary> users = IntStream.range(0, size)
+                .mapToObj(i -> new UserSummary(UUID.randomUUID(), "user" + i, "user" + i + "@example.com",
+                        base.plusSeconds(i / 2)))
+                .sorted(KEY_ORDER)
+                .toList();
+        when(userRepository.findPageAfter(any(), any(), anyInt())).thenAnswer(invocation -> {
+            final LocalDateTime createdAt = invocation.getArgument(0);
+            final UUID id = invocation.getArgument(1);
+            final int limit = invocation.getArgument(2);
+            final UserSummary after = createdAt == null ? null : new UserSummary(id, null, null, createdAt);
+            return users.stream()
+                    .filter(user -> after == null || KEY_ORDER.compare(user, after) > 0)
+                    .limit(limit)
+                    .toList();
+        });
+        return users;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void walksEveryUserOnceAcrossPages() {
+        final List<UserSummary> users = table(7);
+
+        final List<UserSummary> seen = new ArrayList<>();
+        final List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            final Map<String, Object> page = service.listUsers(cursor, 3);
+            final List<UserSummary> pageUsers = (List<UserSummary>) page.get("users");
+            seen.addAll(pageUsers);
+            pageSizes.add(pageUsers.size());
+            cursor = (String) page.get("nextCursor");
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(users);
+        assertThat(pageSizes).containsExactly(3, 3, 1);
+    }
+
+    @Test
+    void lastFullPageIsFollowedByAnEmptyOne() {
+        table(6);
+
+        final String second = (String) service.listUsers(null, 3).get("nextCursor");
+        final String third = (String) service.listUsers(second, 3).get("nextCursor");
+        final Map<String, Object> last = service.listUsers(third, 3);
+
+        assertThat(third).isNotNull();
+        assertThat((List<?>) last.get("users")).isEmpty();
+        assertThat(last.get("nextCursor")).isNull();
+    }
+
+    @Test
+    void blankCursorStartsFromTheFirstPage() {
+        final List<UserSummary> users = table(2);
+
+        assertThat(service.listUsers(" ", 5).get("users")).isEqualTo(users);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        table(1);
+
+        assertThatThrownBy(() -> service.listUsers("%%%", 3)).isInstanceOf(BadRequest.class);
+        assertThatThrownBy(() -> service.listUsers("bm8tc2VwYXJhdG9y", 3)).isInstanceOf(BadRequest.class);
+        assertThatThrownBy(() -> service.listUsers("eHx5", 3)).isInstanceOf(BadRequest.class);
+    }
+}
@@ -0,0 +1,94 @@
+package gustavo.company.auditoria.api.useCase.service.utils;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+
+import gustavo.company.entity.UserDomain;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compares the throughput of token validation as done before (a new
+ * verifier built on every call) with a verifier built once and reused, and
+ * with {@link JWTUtilsImpl}, which adds the verified-token cache in front of
+ * the reused verifier.
+ * <p>
+ * Not run by the test suite. Run it after {@code mvn test-compile} with:
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     gustavo.company.auditoria.api.useCase.service.utils.JWTUtilsImplBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JWTUtilsImplBenchmark {
+
+    private static final String SECRET = "benchmark-secret";
+    private static final String ISSUER = "benchmark";
+
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+    private JWTUtilsImpl cached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        algorithm = Algorithm.HMAC256(SECRET);
+        cached = new JWTUtilsImpl(SECRET, ISSUER, 2, 10_000, new SimpleMeterRegistry());
+        verifier = JWT.require(algorithm)
+                .withIssuer(ISSUER)
+                .build();
+        token = cached.generateUserToken(
+                new UserDomain(UUID.randomUUID(), "Bench", "bench@example.com", "", LocalDateTime.now()));
+    }
+
+    @Benchmark
+    public String verifierPerCall() {
+        return JWT.require(algorithm)
+                .withIssuer(ISSUER)
+                .build()
+                .verify(token)
+                .getSubject();
+    }
+
+    @Benchmark
+    public String reusedVerifier() {
+        return verifier.verify(token).getSubject();
+    }
+
+    @Benchmark
+    public String verifiedTokenCache() {
+        return cached.validateAndExtractUserId(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JWTUtilsImplBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Teste de carga do isolamento entre grupos de endpoints (bulkheads).
+ *
+ * Mede a latência do /isAuth sozinho (auth_baseline) e depois com o chat
+ * saturado (auth_under_load + chat_flood). Com os bulkheads por grupo a
+ * latência do auth deve ficar estável; o excesso de chat recebe 503.
+ *
+ * Preparação (servidor RAG falso lento e limites do RAG acima do bulkhead
+ * do chat, para que o bulkhead HTTP seja o gargalo):
+ *
+ *   cd backend/rag-server && STUB_LATENCY_MS=10000 uvicorn stub_server:app --port 5001
+ *
+ *   RAG_API_URL=http://localhost:5001 \
+ *   VIRTUAL_THREADS_ENABLED=true \
+ *   BULKHEAD_CHAT_MAX_CONCURRENT=100 \
+ *   RAG_BULKHEAD_ADAPTIVE_ENABLED=false \
+ *   RAG_BULKHEAD_MAX_CONCURRENT=1000 RAG_API_POOL_MAX_TOTAL=1000 RAG_API_POOL_MAX_PER_ROUTE=1000 \
+ *   RATE_LIMIT_CHAT_CAPACITY=1000000 RATE_LIMIT_CHAT_REFILL_PER_MINUTE=1000000 \
+ *   mvn -pl framework spring-boot:run
+ *
+ *   k6 run backend/loadtest/bulkhead-isolation.js
+ *
+ * Variáveis: BASE_URL (padrão http://localhost:8080), CHAT_RATE (padrão 300/s),
+ * AUTH_RATE (padrão 20/s).
+ */
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const CHAT_RATE = Number(__ENV.CHAT_RATE || 300);
+const AUTH_RATE = Number(__ENV.AUTH_RATE || 20);
+
+const chatRejected = new Counter('chat_rejected');
+
+export const options = {
+    scenarios: {
+        auth_baseline: {
+            executor: 'constant-arrival-rate',
+            exec: 'auth',
+            rate: AUTH_RATE,
+            timeUnit: '1s',
+            duration: '30s',
+            preAllocatedVUs: 20,
+            maxVUs: 100,
+        },
+        chat_flood: {
+            executor: 'constant-arrival-rate',
+            exec: 'chat',
+            startTime: '30s',
+            rate: CHAT_RATE,
+            timeUnit: '1s',
+            duration: '90s',
+            preAllocatedVUs: 500,
+            maxVUs: 5000,
+        },
+        auth_under_load: {
+            executor: 'constant-arrival-rate',
+            exec: 'auth',
+            startTime: '45s',
+            rate: AUTH_RATE,
+            timeUnit: '1s',
+            duration: '60s',
+            preAllocatedVUs: 20,
+            maxVUs: 100,
+        },
+    },
+    thresholds: {
+        'http_req_duration{scenario:auth_baseline}': ['p(95)<100'],
+        'http_req_duration{scenario:auth_under_load}': ['p(95)<150'],
+        'checks{scenario:auth_under_load}': ['rate>0.99'],
+        // o chat precisa de fato ter saturado para o teste valer
+        chat_rejected: ['count>0'],
+    },
+};
+
+export function setup() {
+    const email = `loadtest-${Date.now()}@example.com`;
+    const res = http.post(`${BASE_URL}/api/v1/auth/register`,
+        JSON.stringify({ name: `loadtest-${Date.now()}`, email, password: 'loadtest-password' }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'registered': (r) => r.status === 201 || r.status === 200 });
+    return { token: res.cookies.token[0].value };
+}
+
+export function auth(data) {
+    const res = http.get(`${BASE_URL}/api/v1/auth/isAuth`, {
+        headers: { Cookie: `token=${data.token}` },
+    });
+    check(res, { 'auth ok': (r) => r.status === 200 });
+}
+
+export function chat(data) {
+    // perguntas distintas, para não cair no cache nem na coalescência
+    const res = http.post(`${BASE_URL}/api/v1/chat-bot/ask/agent`,
+        JSON.stringify({ message: `pergunta de carga ${__VU}-${__ITER}` }),
+        { headers: { 'Content-Type': 'application/json', Cookie: `token=${data.token}` }, timeout: '120s' });
+    if (res.status === 503) chatRejected.add(1);
+    check(res, { 'chat answered or shed': (r) => r.status === 200 || r.status === 503 });
+}
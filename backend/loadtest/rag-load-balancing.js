@@ -0,0 +1,76 @@
+/*
+ * Teste do balanceamento entre réplicas do servidor RAG.
+ *
+ * Três réplicas falsas: "a" e "b" rápidas, "c" lenta. Com power of two
+ * choices a réplica lenta acumula chamadas em andamento e passa a receber
+ * bem menos perguntas; com hedging ligado, as respostas atrasadas são
+ * pedidas também a outra réplica.
+ *
+ *   cd backend/rag-server
+ *   STUB_NAME=a STUB_LATENCY_MS=200 uvicorn stub_server:app --port 5001 &
+ *   STUB_NAME=b STUB_LATENCY_MS=200 uvicorn stub_server:app --port 5002 &
+ *   STUB_NAME=c STUB_LATENCY_MS=5000 uvicorn stub_server:app --port 5003 &
+ *
+ *   RAG_API_URL=http://localhost:5001,http://localhost:5002,http://localhost:5003 \
+ *   RAG_LB_HEDGING_ENABLED=true \
+ *   RATE_LIMIT_CHAT_CAPACITY=1000000 RATE_LIMIT_CHAT_REFILL_PER_MINUTE=1000000 \
+ *   mvn -pl framework spring-boot:run
+ *
+ *   k6 run backend/loadtest/rag-load-balancing.js
+ *
+ * Durante o teste, derrubar a sonda de saúde de uma réplica
+ * (curl -X PUT localhost:5002/health/down) deve tirá-la de rotação em até
+ * um intervalo de sonda; o estado de cada réplica fica em
+ * GET /api/v1/admin/chat-bot/endpoints e nas métricas rag.endpoint.*.
+ *
+ * Variáveis: BASE_URL (padrão http://localhost:8080), RATE (padrão 20/s).
+ */
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const RATE = Number(__ENV.RATE || 20);
+
+const answeredBy = new Counter('answered_by');
+
+export const options = {
+    scenarios: {
+        chat: {
+            executor: 'constant-arrival-rate',
+            exec: 'chat',
+            rate: RATE,
+            timeUnit: '1s',
+            duration: '60s',
+            preAllocatedVUs: 50,
+            maxVUs: 500,
+        },
+    },
+    thresholds: {
+        checks: ['rate>0.99'],
+        // a réplica lenta não pode ditar a latência do conjunto
+        http_req_duration: ['p(90)<1000'],
+    },
+};
+
+export function setup() {
+    const email = `loadtest-${Date.now()}@example.com`;
+    const res = http.post(`${BASE_URL}/api/v1/auth/register`,
+        JSON.stringify({ name: `loadtest-${Date.now()}`, email, password: 'loadtest-password' }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'registered': (r) => r.status === 201 || r.status === 200 });
+    return { token: res.cookies.token[0].value };
+}
+
+export function chat(data) {
+    // perguntas distintas, para não cair no cache nem na coalescência
+    const res = http.post(`${BASE_URL}/api/v1/chat-bot/ask/agent`,
+        JSON.stringify({ message: `pergunta de balanceamento ${__VU}-${__ITER}` }),
+        { headers: { 'Content-Type': 'application/json', Cookie: `token=${data.token}` }, timeout: '120s' });
+    check(res, { 'answered': (r) => r.status === 200 });
+    if (res.status === 200) {
+        // a resposta do servidor falso traz o nome da réplica
+        const replica = (res.json('answer') || '').split(' ')[1];
+        answeredBy.add(1, { replica });
+    }
+}
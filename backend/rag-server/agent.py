@@ -1,7 +1,8 @@
 import os
 from dotenv import load_dotenv
 from pathlib import Path
-from llama_index.core import VectorStoreIndex, SimpleDirectoryReader, Settings
+from llama_index.core import VectorStoreIndex, SimpleDirectoryReader, Settings, get_response_synthesizer
+from llama_index.core.schema import NodeWithScore, TextNode
 from llama_index.llms.ollama import Ollama
 from llama_index.embeddings.huggingface import HuggingFaceEmbedding
 import torch
@@ -42,3 +43,13 @@ Settings.llm = Ollama(
 documents = SimpleDirectoryReader(documents_dir).load_data()
 index = VectorStoreIndex.from_documents(documents)
 query_engine = index.as_query_engine()
+streaming_query_engine = index.as_query_engine(streaming=True)
+
+# Respostas sobre trechos já recuperados pela API Java (índice BM25), sem
+# embedding da pergunta nem busca no índice vetorial
+synthesizer = get_response_synthesizer()
+streaming_synthesizer = get_response_synthesizer(streaming=True)
+
+def context_nodes(passages) -> list[NodeWithScore]:
+    return [NodeWithScore(node=TextNode(text=p.text, metadata={"file_name": p.source}), score=p.score)
+            for p in passages]
@@ -1,16 +1,168 @@
-from fastapi import FastAPI, HTTPException
+import asyncio
+import json
+import logging
+import time
+
+from fastapi import FastAPI, Header, HTTPException, Request
+from fastapi.responses import Response, StreamingResponse
 from pydantic import BaseModel
-from agent import query_engine
+from agent import context_nodes, query_engine, streaming_query_engine, streaming_synthesizer, synthesizer
+
+# Handler próprio: o formato exige trace_id, que só os logs deste módulo têm
+logger = logging.getLogger("rag-server")
+logger.setLevel(logging.INFO)
+logger.propagate = False
+_handler = logging.StreamHandler()
+_handler.setFormatter(logging.Formatter("%(asctime)s %(levelname)s [%(trace_id)s] %(message)s"))
+logger.addHandler(_handler)
+
+# Intervalo entre verificações de desconexão do cliente durante a geração
+DISCONNECT_POLL_SECONDS = 0.5
+
+# Status (convenção do nginx) para requisições abandonadas pelo cliente
+CLIENT_CLOSED_REQUEST = 499
+GATEWAY_TIMEOUT = 504
 
 app = FastAPI()
 
+class Passage(BaseModel):
+    source: str
+    text: str
+    score: float
+
 class QuestionRequest(BaseModel):
     message: str
+    # trechos do índice BM25 da API Java; quando presentes, dispensam a busca vetorial
+    context: list[Passage] | None = None
+
+def answer(request: QuestionRequest):
+    if request.context:
+        return synthesizer.asynthesize(request.message, nodes=context_nodes(request.context))
+    return query_engine.aquery(request.message)
+
+def answer_stream(request: QuestionRequest):
+    if request.context:
+        return streaming_synthesizer.asynthesize(request.message, nodes=context_nodes(request.context))
+    return streaming_query_engine.aquery(request.message)
+
+def trace_log(trace_id: str | None):
+    # Anexa o trace ID enviado pela API Java a cada linha de log da requisição
+    return logging.LoggerAdapter(logger, {"trace_id": trace_id or "-"})
+
+def deadline_of(budget_ms: int | None) -> float | None:
+    # Instante (relógio monotônico) a partir do qual a API Java não espera mais
+    # a resposta; o orçamento restante chega no cabeçalho X-Request-Budget-Ms
+    return None if budget_ms is None else time.monotonic() + budget_ms / 1000
+
+def expired(deadline: float | None) -> bool:
+    return deadline is not None and time.monotonic() >= deadline
+
+async def wait_for_generation(task: asyncio.Task, http_request: Request, deadline: float | None) -> int | None:
+    # Espera a tarefa terminar; se o cliente desconectar ou o prazo acabar antes,
+    # cancela a tarefa (o que fecha a conexão com o Ollama e interrompe a geração)
+    # e devolve o status da resposta; None quando a tarefa terminou
+    while True:
+        timeout = DISCONNECT_POLL_SECONDS
+        if deadline is not None:
+            timeout = max(0, min(timeout, deadline - time.monotonic()))
+        done, _ = await asyncio.wait({task}, timeout=timeout)
+        if done:
+            return None
+        if expired(deadline):
+            task.cancel()
+            return GATEWAY_TIMEOUT
+        if await http_request.is_disconnected():
+            task.cancel()
+            return CLIENT_CLOSED_REQUEST
+
+@app.get("/health")
+async def health():
+    # Sonda de saúde usada pelo balanceamento da API Java
+    return {"status": "ok"}
 
 @app.post("/agent/respond")
-async def ask_question(request: QuestionRequest):
+async def ask_question(request: QuestionRequest, http_request: Request,
+                       x_trace_id: str | None = Header(default=None),
+                       x_request_budget_ms: int | None = Header(default=None)):
+    log = trace_log(x_trace_id)
+    if x_request_budget_ms is not None and x_request_budget_ms <= 0:
+        # prazo já esgotado: nem começa a gerar
+        log.info("prazo esgotado antes da geração, requisição recusada")
+        return Response(status_code=GATEWAY_TIMEOUT)
+    deadline = deadline_of(x_request_budget_ms)
+    start = time.perf_counter()
+    task = asyncio.create_task(answer(request))
     try:
-        response = await query_engine.aquery(request.message)
+        status = await wait_for_generation(task, http_request, deadline)
+        if status == GATEWAY_TIMEOUT:
+            log.info("prazo esgotado após %.0f ms, geração cancelada", (time.perf_counter() - start) * 1000)
+            return Response(status_code=status)
+        if status == CLIENT_CLOSED_REQUEST:
+            log.info("cliente desconectou após %.0f ms, geração cancelada", (time.perf_counter() - start) * 1000)
+            return Response(status_code=status)
+        response = task.result()
+        log.info("resposta gerada em %.0f ms", (time.perf_counter() - start) * 1000)
         return {"answer": str(response)}
     except Exception as e:
+        log.error("falha ao gerar resposta após %.0f ms: %s", (time.perf_counter() - start) * 1000, e)
         raise HTTPException(status_code=500, detail=str(e))
+    finally:
+        # cancelamento do próprio handler (ex.: servidor encerrando)
+        task.cancel()
+
+@app.post("/agent/respond/stream")
+async def ask_question_stream(request: QuestionRequest, http_request: Request,
+                              x_trace_id: str | None = Header(default=None),
+                              x_request_budget_ms: int | None = Header(default=None)):
+    log = trace_log(x_trace_id)
+    if x_request_budget_ms is not None and x_request_budget_ms <= 0:
+        log.info("prazo esgotado antes da geração, requisição recusada")
+        return Response(status_code=GATEWAY_TIMEOUT)
+    deadline = deadline_of(x_request_budget_ms)
+
+    # Cada trecho gerado vira um evento SSE; o dado é uma string JSON. Prazo
+    # esgotado vira um evento "timeout", para a API Java não contar contra a réplica
+    async def event_stream():
+        start = time.perf_counter()
+        first_token_ms = None
+        task = asyncio.create_task(answer_stream(request))
+        try:
+            status = await wait_for_generation(task, http_request, deadline)
+            if status == GATEWAY_TIMEOUT:
+                log.info("prazo esgotado antes do primeiro trecho, geração cancelada")
+                yield f"event: timeout\ndata: {json.dumps('prazo da requisição esgotado')}\n\n"
+                return
+            if status == CLIENT_CLOSED_REQUEST:
+                log.info("cliente desconectou antes do primeiro trecho, geração cancelada")
+                return
+            response = task.result()
+            tokens = response.async_response_gen()
+            async for token in tokens:
+                if expired(deadline):
+                    await tokens.aclose()
+                    log.info("prazo esgotado após %.0f ms, geração cancelada",
+                             (time.perf_counter() - start) * 1000)
+                    yield f"event: timeout\ndata: {json.dumps('prazo da requisição esgotado')}\n\n"
+                    return
+                if await http_request.is_disconnected():
+                    await tokens.aclose()
+                    log.info("cliente desconectou após %.0f ms, geração cancelada",
+                             (time.perf_counter() - start) * 1000)
+                    return
+                if first_token_ms is None:
+                    first_token_ms = (time.perf_counter() - start) * 1000
+                yield f"data: {json.dumps(token)}\n\n"
+            log.info("stream concluído em %.0f ms (primeiro trecho em %.0f ms)",
+                     (time.perf_counter() - start) * 1000, first_token_ms or 0)
+        except Exception as e:
+            log.error("falha no stream após %.0f ms: %s", (time.perf_counter() - start) * 1000, e)
+            yield f"event: error\ndata: {json.dumps(str(e))}\n\n"
+        finally:
+            # o Starlette cancela o gerador quando o cliente desconecta
+            task.cancel()
+
+    return StreamingResponse(
+        event_stream(),
+        media_type="text/event-stream",
+        headers={"Cache-Control": "no-cache", "X-Accel-Buffering": "no"},
+    )
@@ -0,0 +1,75 @@
+"""
+Servidor RAG falso para testes locais de resiliência da API Java.
+
+Responde nas mesmas rotas do app.py sem carregar modelos, injetando latência
+e erros conforme as variáveis de ambiente:
+
+    STUB_LATENCY_MS     latência base de cada resposta (padrão 0)
+    STUB_JITTER_MS      latência extra aleatória, de 0 até o valor (padrão 0)
+    STUB_ERROR_RATE     fração de respostas com erro 500, de 0 a 1 (padrão 0)
+    STUB_NAME           nome da réplica, incluído nas respostas (padrão "stub")
+
+Exemplo:
+    STUB_LATENCY_MS=2000 STUB_ERROR_RATE=0.3 uvicorn stub_server:app --port 5001
+
+Várias réplicas, para testar o balanceamento da API Java
+(RAG_API_URL=http://localhost:5001,http://localhost:5002):
+    STUB_NAME=a uvicorn stub_server:app --port 5001
+    STUB_NAME=b STUB_LATENCY_MS=3000 uvicorn stub_server:app --port 5002
+
+A sonda de saúde de uma réplica pode ser derrubada e restaurada em execução:
+    curl -X PUT localhost:5002/health/down
+    curl -X PUT localhost:5002/health/up
+"""
+import asyncio
+import json
+import os
+import random
+
+from fastapi import FastAPI, HTTPException
+from fastapi.responses import StreamingResponse
+from pydantic import BaseModel
+
+latency_ms = float(os.getenv("STUB_LATENCY_MS", "0"))
+jitter_ms = float(os.getenv("STUB_JITTER_MS", "0"))
+error_rate = float(os.getenv("STUB_ERROR_RATE", "0"))
+name = os.getenv("STUB_NAME", "stub")
+healthy = True
+
+app = FastAPI()
+
+class QuestionRequest(BaseModel):
+    message: str
+
+async def simulate():
+    await asyncio.sleep((latency_ms + random.uniform(0, jitter_ms)) / 1000)
+    if random.random() < error_rate:
+        raise HTTPException(status_code=500, detail="Injected failure")
+
+@app.post("/agent/respond")
+async def ask_question(request: QuestionRequest):
+    await simulate()
+    return {"answer": f"stub {name} answer to: {request.message}"}
+
+@app.post("/agent/respond/stream")
+async def ask_question_stream(request: QuestionRequest):
+    await simulate()
+
+    async def event_stream():
+        for token in f"stub {name} answer to: {request.message}".split(" "):
+            yield f"data: {json.dumps(token + ' ')}\n\n"
+            await asyncio.sleep(0.05)
+
+    return StreamingResponse(event_stream(), media_type="text/event-stream")
+
+@app.get("/health")
+async def health():
+    if not healthy:
+        raise HTTPException(status_code=503, detail="Marked down")
+    return {"status": "ok", "name": name}
+
+@app.put("/health/{state}")
+async def set_health(state: str):
+    global healthy
+    healthy = state != "down"
+    return {"healthy": healthy}